@@ -1,32 +1,90 @@
 package com.att.tdp.popcorn_palace.controllers;
 
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.models.BatchBookingRequest;
+import com.att.tdp.popcorn_palace.models.BatchBookingResponse;
 import com.att.tdp.popcorn_palace.models.Booking;
 import com.att.tdp.popcorn_palace.models.BookingResponse;
+import com.att.tdp.popcorn_palace.models.SeatHoldResponse;
+import com.att.tdp.popcorn_palace.services.BookingAdmission;
 import com.att.tdp.popcorn_palace.services.BookingService;
+import com.att.tdp.popcorn_palace.services.IdempotencyCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.UUID;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
     private BookingService bookingService;
+    private IdempotencyCache idempotencyCache;
+    private BookingAdmission bookingAdmission;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyCache idempotencyCache,
+                             BookingAdmission bookingAdmission) {
         this.bookingService = bookingService;
+        this.idempotencyCache = idempotencyCache;
+        this.bookingAdmission = bookingAdmission;
     }
 
     @PostMapping
-    public ResponseEntity<BookingResponse> bookTicket(@RequestBody Booking booking) {
+    public ResponseEntity<BookingResponse> bookTicket(@RequestBody Booking booking,
+                                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         validateBooking(booking);
-        BookingResponse bookingResponse = bookingService.bookTicket(booking);
+        if (idempotencyKey != null && idempotencyKey.isBlank()) {
+            throw new InvalidResourceException("Idempotency-Key", "must not be blank");
+        }
+
+        // Retries with a known key get the original booking back without reaching the service,
+        // so only requests that will actually book are charged for admission
+        Supplier<BookingResponse> book = () -> {
+            bookingAdmission.admit(booking.getShowtimeId(), booking.getUserId());
+            return bookingService.bookTicket(booking);
+        };
+        BookingResponse bookingResponse = idempotencyKey == null
+                ? book.get()
+                : idempotencyCache.execute(idempotencyKey, booking, book);
         return ResponseEntity.status(HttpStatus.CREATED).body(bookingResponse);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchBookingResponse> bookTickets(@RequestBody BatchBookingRequest request) {
+        validateBatchBooking(request);
+        bookingAdmission.admit(request.getShowtimeId(), request.getUserId());
+        BatchBookingResponse batchBookingResponse = bookingService.bookTickets(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(batchBookingResponse);
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<SeatHoldResponse> holdSeats(@RequestBody BatchBookingRequest request) {
+        validateBatchBooking(request);
+        bookingAdmission.admit(request.getShowtimeId(), request.getUserId());
+        SeatHoldResponse seatHoldResponse = bookingService.holdSeats(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(seatHoldResponse);
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<BatchBookingResponse> confirmHold(@PathVariable UUID holdId, @RequestParam UUID userId) {
+        BatchBookingResponse batchBookingResponse = bookingService.confirmHold(holdId, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(batchBookingResponse);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable UUID holdId, @RequestParam UUID userId) {
+        bookingService.releaseHold(holdId, userId);
+        return ResponseEntity.ok().build();
+    }
+
     private void validateBooking(Booking booking) {
         if (booking == null) {
             throw new InvalidResourceException("Booking cannot be null");
@@ -48,4 +106,22 @@ public class BookingController {
             throw new InvalidResourceException("userId", "must not be null");
         }
     }
+
+    private void validateBatchBooking(BatchBookingRequest request) {
+        if (request == null) {
+            throw new InvalidResourceException("Batch booking cannot be null");
+        }
+
+        if (request.getShowtimeId() == null) {
+            throw new InvalidResourceException("showtimeId", "must not be null");
+        }
+
+        if (request.getUserId() == null) {
+            throw new InvalidResourceException("userId", "must not be null");
+        }
+
+        if (request.getSeatNumbers() == null || request.getSeatNumbers().isEmpty()) {
+            throw new InvalidResourceException("seatNumbers", "must not be empty");
+        }
+    }
 }
\ No newline at end of file
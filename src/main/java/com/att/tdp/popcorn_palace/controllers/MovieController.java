@@ -2,25 +2,106 @@ package com.att.tdp.popcorn_palace.controllers;
 
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
 import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieCatalog;
+import com.att.tdp.popcorn_palace.models.MovieFilterResult;
+import com.att.tdp.popcorn_palace.models.MoviePage;
+import com.att.tdp.popcorn_palace.models.Showtime;
 import com.att.tdp.popcorn_palace.services.MovieService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/movies")
 public class MovieController {
+    private static final int MAX_PAGE_LIMIT = 500;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+
     private MovieService movieService;
 
     public MovieController(MovieService movieService) {
         this.movieService = movieService;
     }
 
+    // Serves the pre-rendered catalog snapshot; a client holding the current version gets 304 Not Modified
     @GetMapping("/all")
-    public ResponseEntity<List<Movie>> getAllMovies() {
-        return ResponseEntity.ok(movieService.getAllMovies());
+    public ResponseEntity<byte[]> getAllMovies(WebRequest request) {
+        MovieCatalog catalog = movieService.getCatalog();
+        if (request.checkNotModified(catalog.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(catalog.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalog.getJson());
+    }
+
+    // Keyset pagination, selected by the limit parameter
+    @GetMapping(value = "/all", params = "limit")
+    public ResponseEntity<MoviePage> getMoviePage(@RequestParam(required = false) Long afterId,
+                                                  @RequestParam int limit) {
+        if (afterId != null && afterId < 0) {
+            throw new InvalidResourceException("afterId", "must not be negative");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            throw new InvalidResourceException("limit", "must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return ResponseEntity.ok(movieService.getMoviePage(afterId, limit));
+    }
+
+    // Streams the catalog straight from a database cursor, however large it is
+    @GetMapping(value = "/all", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllMovies() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(movieService::streamMovies);
+    }
+
+    // Ranked title search for search-as-you-type, served from memory
+    @GetMapping("/search")
+    public ResponseEntity<List<Movie>> searchMovies(@RequestParam String q,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        if (q.isBlank()) {
+            throw new InvalidResourceException("q", "must not be empty");
+        }
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidResourceException("q", "must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidResourceException("limit", "must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        return ResponseEntity.ok(movieService.searchMovies(q, limit));
+    }
+
+    // Filters and facet counts from the bitmap index of the catalog snapshot
+    @GetMapping("/filter")
+    public ResponseEntity<MovieFilterResult> filterMovies(@RequestParam(required = false) String genre,
+                                                          @RequestParam(required = false) Integer minYear,
+                                                          @RequestParam(required = false) Integer maxYear,
+                                                          @RequestParam(required = false) Double minRating,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        if (minYear != null && maxYear != null && minYear > maxYear) {
+            throw new InvalidResourceException("minYear", "must not be after maxYear");
+        }
+        if (minRating != null && (minRating < 0 || minRating > 10)) {
+            throw new InvalidResourceException("minRating", "must be between 0 and 10");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            throw new InvalidResourceException("limit", "must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        String genreFilter = genre == null || genre.isBlank() ? null : genre;
+        return ResponseEntity.ok(movieService.filterMovies(genreFilter, minYear, maxYear, minRating, limit));
+    }
+
+    @GetMapping("/{movieId}/showtimes")
+    public ResponseEntity<List<Showtime>> getUpcomingShowtimes(@PathVariable Long movieId) {
+        return ResponseEntity.ok(movieService.getUpcomingShowtimes(movieId));
     }
 
     @PostMapping
@@ -1,19 +1,41 @@
 package com.att.tdp.popcorn_palace.controllers;
 
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.models.RecurringShowtimeRequest;
+import com.att.tdp.popcorn_palace.models.SeatAvailability;
 import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.ShowtimeImportReport;
+import com.att.tdp.popcorn_palace.models.ShowtimePage;
+import com.att.tdp.popcorn_palace.models.TheaterDaySchedule;
+import com.att.tdp.popcorn_palace.models.TimeSlot;
+import com.att.tdp.popcorn_palace.services.ShowtimeImportService;
 import com.att.tdp.popcorn_palace.services.ShowtimeService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/showtime")
 public class ShowtimeController {
+    private static final String TEXT_CSV = "text/csv";
+    private static final int MAX_SEARCH_LIMIT = 500;
+
     private ShowtimeService showtimeService;
+    private ShowtimeImportService showtimeImportService;
 
-    public ShowtimeController(ShowtimeService showtimeService) {
+    public ShowtimeController(ShowtimeService showtimeService, ShowtimeImportService showtimeImportService) {
         this.showtimeService = showtimeService;
+        this.showtimeImportService = showtimeImportService;
     }
 
     @GetMapping("/{showtimeId}")
@@ -22,6 +44,61 @@ public class ShowtimeController {
         return ResponseEntity.ok(showtimeService.getShowtime(showtimeId));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ShowtimePage> searchShowtimes(@RequestParam(required = false) String theater,
+                                                        @RequestParam(required = false) Long movieId,
+                                                        @RequestParam(required = false) Instant from,
+                                                        @RequestParam(required = false) Instant to,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        if (theater != null && theater.trim().isEmpty()) {
+            throw new InvalidResourceException("theater", "must not be empty");
+        }
+        if (movieId != null && movieId <= 0) {
+            throw new InvalidResourceException("movieId", "must be a positive number");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidResourceException("from", "must be before to");
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidResourceException("limit", "must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        return ResponseEntity.ok(showtimeService.searchShowtimes(theater, movieId, from, to, cursor, limit));
+    }
+
+    @GetMapping("/schedule")
+    public ResponseEntity<TheaterDaySchedule> getTheaterDaySchedule(@RequestParam String theater,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (theater.trim().isEmpty()) {
+            throw new InvalidResourceException("theater", "must not be empty");
+        }
+        return ResponseEntity.ok(showtimeService.getTheaterDaySchedule(theater, date));
+    }
+
+    @GetMapping("/free-slots")
+    public ResponseEntity<List<TimeSlot>> findFreeSlots(@RequestParam String theater,
+                                                        @RequestParam Instant from,
+                                                        @RequestParam Instant to,
+                                                        @RequestParam int durationMinutes) {
+        if (theater.trim().isEmpty()) {
+            throw new InvalidResourceException("theater", "must not be empty");
+        }
+        if (!from.isBefore(to)) {
+            throw new InvalidResourceException("from", "must be before to");
+        }
+        // The same limits as for scheduling a showtime
+        if (durationMinutes < 30 || durationMinutes > 5 * 60) {
+            throw new InvalidResourceException("durationMinutes", "must be between 30 and 300");
+        }
+        return ResponseEntity.ok(showtimeService.findFreeSlots(theater, from, to, Duration.ofMinutes(durationMinutes)));
+    }
+
+    @GetMapping("/{showtimeId}/seats")
+    public ResponseEntity<SeatAvailability> getSeatAvailability(@PathVariable Long showtimeId) {
+        validateId(showtimeId);
+        return ResponseEntity.ok(showtimeService.getSeatAvailability(showtimeId));
+    }
+
     @PostMapping
     public ResponseEntity<Showtime> addShowtime(@RequestBody Showtime showtime) {
         validateShowtime(showtime);
@@ -29,6 +106,23 @@ public class ShowtimeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(addedShowtime);
     }
 
+    // Streams the body instead of binding it, so large schedules are never held as one string
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public ResponseEntity<ShowtimeImportReport> importShowtimes(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                InputStream body) throws IOException {
+        ShowtimeImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? ShowtimeImportService.Format.CSV
+                : ShowtimeImportService.Format.NDJSON;
+        return ResponseEntity.ok(showtimeImportService.importShowtimes(body, format));
+    }
+
+    @PostMapping("/recurring")
+    public ResponseEntity<List<Showtime>> addRecurringShowtime(@RequestBody RecurringShowtimeRequest request) {
+        validateRecurringShowtime(request);
+        List<Showtime> addedShowtimes = showtimeImportService.scheduleRecurring(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(addedShowtimes);
+    }
+
     @PostMapping("/update/{showtimeId}")
     public ResponseEntity<Void> updateShowtime(@PathVariable Long showtimeId, @RequestBody Showtime updatedShowtime) {
         validateId(showtimeId);
@@ -75,4 +169,38 @@ public class ShowtimeController {
             throw new InvalidResourceException("price", "must be positive");
         }
     }
-}
\ No newline at end of file
+
+    private void validateRecurringShowtime(RecurringShowtimeRequest request) {
+        if (request == null) {
+            throw new InvalidResourceException("Recurring showtime cannot be null");
+        }
+
+        if (request.getMovieId() == null || request.getMovieId() <= 0) {
+            throw new InvalidResourceException("movieId", "must be a positive number");
+        }
+
+        if (request.getTheater() == null || request.getTheater().trim().isEmpty()) {
+            throw new InvalidResourceException("theater", "must not be empty");
+        }
+
+        if (request.getPrice() == null || request.getPrice() <= 0) {
+            throw new InvalidResourceException("price", "must be positive");
+        }
+
+        if (request.getStartDate() == null || request.getEndDate() == null) {
+            throw new InvalidResourceException("startDate and endDate", "must not be null");
+        }
+
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new InvalidResourceException("endDate", "must not be before startDate");
+        }
+
+        if (request.getTimes() == null || request.getTimes().isEmpty() || request.getTimes().contains(null)) {
+            throw new InvalidResourceException("times", "must list at least one time of day");
+        }
+
+        if (request.getDurationMinutes() == null || request.getDurationMinutes() <= 0) {
+            throw new InvalidResourceException("durationMinutes", "must be positive");
+        }
+    }
+}
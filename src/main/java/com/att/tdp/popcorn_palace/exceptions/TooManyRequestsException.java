@@ -0,0 +1,28 @@
+package com.att.tdp.popcorn_palace.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+
+public class TooManyRequestsException extends BaseException {
+
+    private static final String DEFAULT_ERROR_CODE = "TOO_MANY_REQUESTS";
+
+    private final Duration retryAfter;
+
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message, DEFAULT_ERROR_CODE);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.TOO_MANY_REQUESTS;
+    }
+}
@@ -0,0 +1,42 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BatchBookingRequest {
+    private Long showtimeId;
+    private UUID userId;
+    private List<Integer> seatNumbers;
+
+    public BatchBookingRequest() {}
+
+    public BatchBookingRequest(Long showtimeId, UUID userId, List<Integer> seatNumbers) {
+        this.showtimeId = showtimeId;
+        this.userId = userId;
+        this.seatNumbers = seatNumbers;
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public void setShowtimeId(Long showtimeId) {
+        this.showtimeId = showtimeId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public List<Integer> getSeatNumbers() {
+        return seatNumbers;
+    }
+
+    public void setSeatNumbers(List<Integer> seatNumbers) {
+        this.seatNumbers = seatNumbers;
+    }
+}
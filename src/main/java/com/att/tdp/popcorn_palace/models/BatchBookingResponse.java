@@ -0,0 +1,22 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BatchBookingResponse {
+    private List<UUID> bookingIds;
+
+    public BatchBookingResponse() {}
+
+    public BatchBookingResponse(List<UUID> bookingIds) {
+        this.bookingIds = bookingIds;
+    }
+
+    public List<UUID> getBookingIds() {
+        return bookingIds;
+    }
+
+    public void setBookingIds(List<UUID> bookingIds) {
+        this.bookingIds = bookingIds;
+    }
+}
@@ -1,13 +1,16 @@
 package com.att.tdp.popcorn_palace.models;
 import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.util.UUID;
 
 @Entity
-@Table(name="bookings")
+@Table(name="bookings",
+        uniqueConstraints = @UniqueConstraint(name = "uk_booking_showtime_seat", columnNames = {"showtime_id", "seat_number"}))
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID bookingId;
     private Long showtimeId;
     private Integer seatNumber;
@@ -0,0 +1,88 @@
+package com.att.tdp.popcorn_palace.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        // Lets the periodic purge of expired keys find them without a full scan
+        @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+    /***
+     * Outcome of a booking request made with an Idempotency-Key header, kept so that retries
+     * of the request get the original booking back
+     */
+    @Id
+    private String idempotencyKey;
+    private UUID bookingId;
+    private Long showtimeId;
+    private Integer seatNumber;
+    private UUID userId;
+    private Instant createdAt;
+
+    // Constructors
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String idempotencyKey, UUID bookingId, Long showtimeId, Integer seatNumber,
+                             UUID userId, Instant createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.bookingId = bookingId;
+        this.showtimeId = showtimeId;
+        this.seatNumber = seatNumber;
+        this.userId = userId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public UUID getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(UUID bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public void setShowtimeId(Long showtimeId) {
+        this.showtimeId = showtimeId;
+    }
+
+    public Integer getSeatNumber() {
+        return seatNumber;
+    }
+
+    public void setSeatNumber(Integer seatNumber) {
+        this.seatNumber = seatNumber;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,9 +1,15 @@
 package com.att.tdp.popcorn_palace.models;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.Locale;
+
 
 @Entity
-@Table(name="movies")
+@Table(name="movies", indexes = {
+        // Titles are unique regardless of case and spacing
+        @Index(name = "ux_movie_normalized_title", columnList = "normalized_title", unique = true)
+})
 public class Movie {
     /***
      * This class represents a Movie object- which is a movie entity in the database.
@@ -19,6 +25,11 @@ public class Movie {
     private double rating;
     private int releaseYear;
 
+    // Kept in sync with the title on every write, see normalizeTitle
+    @JsonIgnore
+    @Column(name = "normalized_title")
+    private String normalizedTitle;
+
 
     // Constructors
     public Movie() {
@@ -51,6 +62,22 @@ public class Movie {
     public int getReleaseYear() { return releaseYear; }
     public void setReleaseYear(int releaseYear) { this.releaseYear = releaseYear; }
 
+    public String getNormalizedTitle() { return normalizedTitle; }
+
+    @PrePersist
+    @PreUpdate
+    void updateNormalizedTitle() {
+        normalizedTitle = normalizeTitle(title);
+    }
+
+    /**
+     * Returns the form of a title that decides whether two movies have the same title: trimmed,
+     * runs of whitespace collapsed to one space, and lower case.
+     */
+    public static String normalizeTitle(String title) {
+        return title == null ? null : title.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
 
     // toString -for testing mainly
     @Override
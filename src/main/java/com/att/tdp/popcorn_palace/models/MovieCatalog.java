@@ -0,0 +1,38 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+
+public class MovieCatalog {
+    /***
+     * An immutable snapshot of all movies, along with its JSON form and an ETag naming this
+     * version of the catalog. The JSON is rendered once per snapshot and must not be modified.
+     */
+
+    private final long version;
+    private final String eTag;
+    private final List<Movie> movies;
+    private final byte[] json;
+
+    public MovieCatalog(long version, String eTag, List<Movie> movies, byte[] json) {
+        this.version = version;
+        this.eTag = eTag;
+        this.movies = List.copyOf(movies);
+        this.json = json;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+}
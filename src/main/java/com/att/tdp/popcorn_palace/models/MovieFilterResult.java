@@ -0,0 +1,58 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+import java.util.Map;
+
+public class MovieFilterResult {
+    /***
+     * The movies matching a catalog filter, in ID order and cut to the requested limit, with the
+     * total number of matches. The facet counts tell how many movies each genre and each release
+     * year would match if it were picked instead, given the other filters.
+     */
+
+    private List<Movie> movies;
+    private int total;
+    private Map<String, Integer> genres;
+    private Map<Integer, Integer> years;
+
+    public MovieFilterResult() {}
+
+    public MovieFilterResult(List<Movie> movies, int total, Map<String, Integer> genres, Map<Integer, Integer> years) {
+        this.movies = movies;
+        this.total = total;
+        this.genres = genres;
+        this.years = years;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<Movie> movies) {
+        this.movies = movies;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public Map<String, Integer> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(Map<String, Integer> genres) {
+        this.genres = genres;
+    }
+
+    public Map<Integer, Integer> getYears() {
+        return years;
+    }
+
+    public void setYears(Map<Integer, Integer> years) {
+        this.years = years;
+    }
+}
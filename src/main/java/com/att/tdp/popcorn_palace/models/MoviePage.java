@@ -0,0 +1,36 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+
+public class MoviePage {
+    /***
+     * One page of the movie catalog, ordered by ID. nextAfterId is the afterId that fetches the
+     * following page, or null on the last page.
+     */
+
+    private List<Movie> movies;
+    private Long nextAfterId;
+
+    public MoviePage() {}
+
+    public MoviePage(List<Movie> movies, Long nextAfterId) {
+        this.movies = movies;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<Movie> movies) {
+        this.movies = movies;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.att.tdp.popcorn_palace.models;
+
+public class MovieTitle {
+    /***
+     * A movie's normalized title and ID, loaded without the rest of the entity
+     */
+
+    private final Long id;
+    private final String normalizedTitle;
+
+    public MovieTitle(Long id, String normalizedTitle) {
+        this.id = id;
+        this.normalizedTitle = normalizedTitle;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNormalizedTitle() {
+        return normalizedTitle;
+    }
+}
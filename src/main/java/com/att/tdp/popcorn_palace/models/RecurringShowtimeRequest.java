@@ -0,0 +1,98 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+public class RecurringShowtimeRequest {
+    /***
+     * A showtime template repeated at the given local times on every matching day from startDate
+     * to endDate, both inclusive. daysOfWeek defaults to every day and zone to the schedule zone.
+     */
+
+    private Long movieId;
+    private String theater;
+    private Double price;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<LocalTime> times;
+    private Integer durationMinutes;
+    private Set<DayOfWeek> daysOfWeek;
+    private String zone;
+
+    public RecurringShowtimeRequest() {}
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getTheater() {
+        return theater;
+    }
+
+    public void setTheater(String theater) {
+        this.theater = theater;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<LocalTime> getTimes() {
+        return times;
+    }
+
+    public void setTimes(List<LocalTime> times) {
+        this.times = times;
+    }
+
+    public Integer getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(Integer durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    public void setDaysOfWeek(Set<DayOfWeek> daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+}
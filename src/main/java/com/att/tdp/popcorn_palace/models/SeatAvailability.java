@@ -0,0 +1,48 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+
+public class SeatAvailability {
+    /***
+     * Occupancy map of a showtime. Taken seats (booked or held) are run-length encoded as
+     * inclusive [first, last] ranges, e.g. [[5, 6], [15, 15]]; every other seat is free.
+     */
+
+    private Long showtimeId;
+    private int occupiedCount;
+    private List<int[]> occupiedRanges;
+
+    public SeatAvailability() {}
+
+    public SeatAvailability(Long showtimeId, List<int[]> occupiedRanges) {
+        this.showtimeId = showtimeId;
+        this.occupiedRanges = occupiedRanges;
+        for (int[] range : occupiedRanges) {
+            this.occupiedCount += range[1] - range[0] + 1;
+        }
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public void setShowtimeId(Long showtimeId) {
+        this.showtimeId = showtimeId;
+    }
+
+    public int getOccupiedCount() {
+        return occupiedCount;
+    }
+
+    public void setOccupiedCount(int occupiedCount) {
+        this.occupiedCount = occupiedCount;
+    }
+
+    public List<int[]> getOccupiedRanges() {
+        return occupiedRanges;
+    }
+
+    public void setOccupiedRanges(List<int[]> occupiedRanges) {
+        this.occupiedRanges = occupiedRanges;
+    }
+}
@@ -0,0 +1,53 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public class SeatHoldResponse {
+    private UUID holdId;
+    private Long showtimeId;
+    private List<Integer> seatNumbers;
+    private Instant expiresAt;
+
+    public SeatHoldResponse() {}
+
+    public SeatHoldResponse(UUID holdId, Long showtimeId, List<Integer> seatNumbers, Instant expiresAt) {
+        this.holdId = holdId;
+        this.showtimeId = showtimeId;
+        this.seatNumbers = seatNumbers;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(UUID holdId) {
+        this.holdId = holdId;
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public void setShowtimeId(Long showtimeId) {
+        this.showtimeId = showtimeId;
+    }
+
+    public List<Integer> getSeatNumbers() {
+        return seatNumbers;
+    }
+
+    public void setSeatNumbers(List<Integer> seatNumbers) {
+        this.seatNumbers = seatNumbers;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,10 +1,16 @@
 package com.att.tdp.popcorn_palace.models;
 
+import com.att.tdp.popcorn_palace.repositories.TheaterIdConverter;
 import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "showtimes")
+// Composite indexes end in (start_time, id) so that every search filter can seek to a page
+@Table(name = "showtimes", indexes = {
+        @Index(name = "idx_showtime_start_id", columnList = "start_time, id"),
+        @Index(name = "idx_showtime_theater_start", columnList = "theater_id, start_time, id"),
+        @Index(name = "idx_showtime_movie_start", columnList = "movie_id, start_time, id")
+})
 public class Showtime {
 
     @Id
@@ -12,6 +18,9 @@ public class Showtime {
     private Long id;
     private Double price;
     private Long movieId;
+    // Exposed by name, stored as the theater's ID
+    @Convert(converter = TheaterIdConverter.class)
+    @Column(name = "theater_id")
     private String theater;
     private Instant startTime;
     private Instant endTime;
@@ -0,0 +1,50 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+
+public class ShowtimeImportReport {
+    /***
+     * Per-row report of a bulk showtime import, with one result per non-blank line in file order
+     */
+
+    private int accepted;
+    private int rejected;
+    private List<ShowtimeImportResult> rows;
+
+    public ShowtimeImportReport() {}
+
+    public ShowtimeImportReport(List<ShowtimeImportResult> rows) {
+        this.rows = rows;
+        for (ShowtimeImportResult row : rows) {
+            if (row.getStatus() == ShowtimeImportResult.Status.ACCEPTED) {
+                this.accepted++;
+            } else {
+                this.rejected++;
+            }
+        }
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ShowtimeImportResult> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<ShowtimeImportResult> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,67 @@
+package com.att.tdp.popcorn_palace.models;
+
+public class ShowtimeImportResult {
+    /***
+     * Outcome of one row of a bulk showtime import. Lines are numbered as in the uploaded file,
+     * so a CSV file's first showtime is on line 2, after the header.
+     */
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+
+    private int line;
+    private Status status;
+    private Long showtimeId;
+    private String reason;
+
+    public ShowtimeImportResult() {}
+
+    public ShowtimeImportResult(int line, Status status, Long showtimeId, String reason) {
+        this.line = line;
+        this.status = status;
+        this.showtimeId = showtimeId;
+        this.reason = reason;
+    }
+
+    public static ShowtimeImportResult accepted(int line, Long showtimeId) {
+        return new ShowtimeImportResult(line, Status.ACCEPTED, showtimeId, null);
+    }
+
+    public static ShowtimeImportResult rejected(int line, String reason) {
+        return new ShowtimeImportResult(line, Status.REJECTED, null, reason);
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public void setShowtimeId(Long showtimeId) {
+        this.showtimeId = showtimeId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,31 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.time.Instant;
+
+public class ShowtimeInterval {
+    /***
+     * The time slot a showtime occupies in its theater, loaded without the rest of the entity
+     */
+
+    private final Long id;
+    private final Instant startTime;
+    private final Instant endTime;
+
+    public ShowtimeInterval(Long id, Instant startTime, Instant endTime) {
+        this.id = id;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+}
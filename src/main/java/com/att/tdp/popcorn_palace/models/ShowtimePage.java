@@ -0,0 +1,36 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.util.List;
+
+public class ShowtimePage {
+    /***
+     * One page of a showtime search, ordered by start time and ID. nextCursor is an opaque token
+     * that fetches the following page, or null on the last page.
+     */
+
+    private List<Showtime> showtimes;
+    private String nextCursor;
+
+    public ShowtimePage() {}
+
+    public ShowtimePage(List<Showtime> showtimes, String nextCursor) {
+        this.showtimes = showtimes;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Showtime> getShowtimes() {
+        return showtimes;
+    }
+
+    public void setShowtimes(List<Showtime> showtimes) {
+        this.showtimes = showtimes;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
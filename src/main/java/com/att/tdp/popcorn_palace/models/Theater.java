@@ -0,0 +1,42 @@
+package com.att.tdp.popcorn_palace.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "theaters")
+public class Theater {
+    /***
+     * A theater, referenced by showtimes through its compact integer ID. Showtimes still expose
+     * the theater's name; the mapping between the two is kept in memory by TheaterDictionary.
+     */
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name;
+
+    public Theater() {
+    }
+
+    public Theater(String name) {
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,33 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class TheaterDaySchedule {
+    /***
+     * The showtimes of one theater starting on one day, sorted by start time. Instances are
+     * immutable so that one cached copy can be served to every reader.
+     */
+
+    private final String theater;
+    private final LocalDate date;
+    private final List<Showtime> showtimes;
+
+    public TheaterDaySchedule(String theater, LocalDate date, List<Showtime> showtimes) {
+        this.theater = theater;
+        this.date = date;
+        this.showtimes = List.copyOf(showtimes);
+    }
+
+    public String getTheater() {
+        return theater;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public List<Showtime> getShowtimes() {
+        return showtimes;
+    }
+}
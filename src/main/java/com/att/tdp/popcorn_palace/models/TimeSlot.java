@@ -0,0 +1,36 @@
+package com.att.tdp.popcorn_palace.models;
+
+import java.time.Instant;
+
+public class TimeSlot {
+    /***
+     * A free stretch of a theater's schedule. Any showtime that starts at or after startTime and
+     * ends at or before endTime fits without touching another showtime.
+     */
+
+    private Instant startTime;
+    private Instant endTime;
+
+    public TimeSlot() {}
+
+    public TimeSlot(Instant startTime, Instant endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+}
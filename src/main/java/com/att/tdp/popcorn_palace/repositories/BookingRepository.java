@@ -2,7 +2,14 @@ package com.att.tdp.popcorn_palace.repositories;
 
 import com.att.tdp.popcorn_palace.models.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface BookingRepository extends JpaRepository<Booking, Long>{
-    boolean existsByShowtimeIdAndSeatNumber(Long showtimeId, Integer seatNumber);
+import java.util.List;
+import java.util.UUID;
+
+public interface BookingRepository extends JpaRepository<Booking, UUID>{
+    // Booked seats of a showtime, used to warm the in-memory seat map
+    @Query("SELECT b.seatNumber FROM Booking b WHERE b.showtimeId = :showtimeId")
+    List<Integer> findSeatNumbersByShowtimeId(@Param("showtimeId") Long showtimeId);
 }
@@ -2,11 +2,43 @@ package com.att.tdp.popcorn_palace.repositories;
 
 
 import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieTitle;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface MovieRepository extends JpaRepository<Movie, Long> {
-    Optional<Movie> findByTitle(String title);
-    boolean existsByTitle(String title);
 
+    // Every movie's normalized title, used to warm the in-memory title index
+    @Query("SELECT new com.att.tdp.popcorn_palace.models.MovieTitle(m.id, m.normalizedTitle) " +
+            "FROM Movie m WHERE m.normalizedTitle IS NOT NULL")
+    List<MovieTitle> findAllTitles();
+
+    // Updates a movie in one statement, without loading it first; returns the number of rows changed
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Movie m SET m.title = :title, m.normalizedTitle = :normalizedTitle, m.genre = :genre, " +
+            "m.duration = :duration, m.rating = :rating, m.releaseYear = :releaseYear WHERE m.id = :id")
+    int updateMovie(@Param("id") Long id, @Param("title") String title, @Param("normalizedTitle") String normalizedTitle,
+                    @Param("genre") String genre, @Param("duration") int duration, @Param("rating") double rating,
+                    @Param("releaseYear") int releaseYear);
+
+    // Deletes a movie in one statement, without loading it first; returns the number of rows deleted
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Movie m WHERE m.id = :id")
+    int deleteMovieById(@Param("id") Long id);
+
+    // Resolves many movie references in one round trip, e.g. for a bulk showtime import
+    @Query("SELECT m.id FROM Movie m WHERE m.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // One page of the catalog in ID order, starting after the given ID
+    List<Movie> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
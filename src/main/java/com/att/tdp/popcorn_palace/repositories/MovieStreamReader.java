@@ -0,0 +1,49 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Reads the whole movie catalog row by row through a database cursor, for callers that pass each
+ * movie on instead of collecting them. The driver holds at most {@code movie.stream.fetch-size}
+ * rows at a time, and no entities are kept in a persistence context, so memory use does not grow
+ * with the catalog.
+ */
+@Component
+public class MovieStreamReader {
+
+    private static final String SELECT_SQL =
+            "SELECT id, title, genre, duration, rating, release_year FROM movies ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MovieStreamReader(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             @Value("${movie.stream.fetch-size:500}") int fetchSize) {
+        // A template of its own, so the fetch size does not apply to other queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only honors the fetch size inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Passes every movie to the consumer in ID order, each as a new detached object.
+     */
+    public void forEach(Consumer<Movie> consumer) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SELECT_SQL, row -> {
+            Movie movie = new Movie(row.getString("title"), row.getString("genre"), row.getInt("duration"),
+                    row.getDouble("rating"), row.getInt("release_year"));
+            movie.setId(row.getLong("id"));
+            consumer.accept(movie);
+        }));
+    }
+}
@@ -0,0 +1,61 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the normalized title of movies stored before the column existed. Normalization is done
+ * here rather than in SQL so that it matches {@link Movie#normalizeTitle} exactly. Movies whose
+ * titles clash with another one after normalization are logged and startup fails, since only an
+ * operator can decide which to rename, and until then a title would address more than one movie.
+ * The other movies keep their new normalized titles, so the next startup only retries the clashes.
+ * On PostgreSQL, whose schema is maintained by Hibernate, the column is then made mandatory.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MovieTitleMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieTitleMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieTitleMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> clashes = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT id, title FROM movies WHERE normalized_title IS NULL ORDER BY id")) {
+            try {
+                jdbcTemplate.update("UPDATE movies SET normalized_title = ? WHERE id = ?",
+                        Movie.normalizeTitle((String) row.get("title")), row.get("id"));
+            } catch (DataIntegrityViolationException e) {
+                clashes.add(row.get("id") + " '" + row.get("title") + "'");
+                logger.error("Movie {} has the same normalized title as another movie: '{}'", row.get("id"), row.get("title"));
+            }
+        }
+        if (!clashes.isEmpty()) {
+            throw new IllegalStateException("Movie titles must be unique regardless of case and spacing; rename movies "
+                    + String.join(", ", clashes) + " and restart");
+        }
+
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.execute("ALTER TABLE movies ALTER COLUMN normalized_title SET NOT NULL");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many showtimes as one JDBC batch. Hibernate cannot batch inserts of entities with
+ * identity keys, so bulk imports go through plain JDBC and read the generated keys back.
+ */
+@Component
+public class ShowtimeBatchInserter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO showtimes (movie_id, theater_id, price, start_time, end_time) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TheaterDictionary theaterDictionary;
+
+    public ShowtimeBatchInserter(JdbcTemplate jdbcTemplate, TheaterDictionary theaterDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.theaterDictionary = theaterDictionary;
+    }
+
+    /**
+     * Inserts the showtimes in the current transaction and sets their generated IDs.
+     * Theaters that do not exist yet are created.
+     */
+    public void insertAll(List<Showtime> showtimes) {
+        if (showtimes.isEmpty()) {
+            return;
+        }
+
+        // Theaters are resolved up front, so no other statement runs while the batch is being built
+        Map<String, Integer> theaterIds = new HashMap<>();
+        showtimes.forEach(showtime -> theaterIds.computeIfAbsent(showtime.getTheater(), theaterDictionary::register));
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Showtime showtime = showtimes.get(i);
+                        statement.setLong(1, showtime.getMovieId());
+                        statement.setInt(2, theaterIds.get(showtime.getTheater()));
+                        statement.setDouble(3, showtime.getPrice());
+                        statement.setObject(4, OffsetDateTime.ofInstant(showtime.getStartTime(), ZoneOffset.UTC));
+                        statement.setObject(5, OffsetDateTime.ofInstant(showtime.getEndTime(), ZoneOffset.UTC));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return showtimes.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < showtimes.size(); i++) {
+            // Drivers differ in the case of the key column, so take the only value there is
+            Number id = (Number) keys.get(i).values().iterator().next();
+            showtimes.get(i).setId(id.longValue());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Installs the exclusion constraint that keeps showtimes of one theater from overlapping on
+ * PostgreSQL, where the schema is maintained by Hibernate and cannot express it.
+ * The constraint's GiST index over (theater_id, [start_time, end_time]) also serves overlap lookups.
+ * Other databases get an equivalent from their own schema scripts, e.g. a trigger on H2.
+ * Startup fails if the constraint cannot be installed, since it is what keeps concurrent inserts safe.
+ */
+@Component
+@DependsOn({"entityManagerFactory", "theaterSchemaMigration"})
+public class ShowtimeOverlapConstraint implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeOverlapConstraint.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShowtimeOverlapConstraint(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, ShowtimeRepository.NO_OVERLAP_CONSTRAINT);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        try {
+            // btree_gist lets the equality on theater_id share one GiST index with the range overlap
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute("ALTER TABLE showtimes ADD CONSTRAINT " + ShowtimeRepository.NO_OVERLAP_CONSTRAINT +
+                    " EXCLUDE USING gist (theater_id WITH =, tstzrange(start_time, end_time, '[]') WITH &&)");
+        } catch (DataAccessException e) {
+            // Existing overlapping rows, a missing extension or privileges; without the constraint
+            // concurrent inserts could double-book a theater, so refuse to start
+            logger.error("Could not install showtime overlap constraint: {}", e.getMessage());
+            throw new IllegalStateException("Could not install showtime overlap constraint "
+                    + ShowtimeRepository.NO_OVERLAP_CONSTRAINT, e);
+        }
+    }
+}
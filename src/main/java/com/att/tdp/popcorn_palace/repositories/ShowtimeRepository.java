@@ -1,29 +1,33 @@
 package com.att.tdp.popcorn_palace.repositories;
 
 import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.ShowtimeInterval;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
 
-public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
-    @Query("SELECT s FROM Showtime s WHERE s.theater = :theater AND " +
-            "((s.startTime <= :endTime AND s.endTime >= :startTime) OR " +
-            "(s.startTime >= :startTime AND s.startTime <= :endTime)) AND " +
-            "(:id IS NULL OR s.id <> :id)")
-    List<Showtime> findOverlappingShowtimes(
-            @Param("theater") String theater,
-            @Param("startTime") Instant startTime,
-            @Param("endTime") Instant endTime,
-            @Param("id") Long id
-    );
+public interface ShowtimeRepository extends JpaRepository<Showtime, Long>, JpaSpecificationExecutor<Showtime> {
+    // Exclusion constraint that keeps showtimes of one theater from overlapping
+    String NO_OVERLAP_CONSTRAINT = "ex_showtime_theater_overlap";
+
+    // Time slots of a theater, used to warm the in-memory schedule index
+    @Query("SELECT new com.att.tdp.popcorn_palace.models.ShowtimeInterval(s.id, s.startTime, s.endTime) " +
+            "FROM Showtime s WHERE s.theater = :theater")
+    List<ShowtimeInterval> findIntervalsByTheater(@Param("theater") String theater);
+
+    // Showtimes of a theater starting in [from, to), in schedule order
+    @Query("SELECT s FROM Showtime s WHERE s.theater = :theater AND s.startTime >= :from AND s.startTime < :to " +
+            "ORDER BY s.startTime, s.id")
+    List<Showtime> findScheduleByTheater(@Param("theater") String theater, @Param("from") Instant from, @Param("to") Instant to);
 
     // Add method to check if a movie has any showtimes
     boolean existsByMovieId(Long movieId);
 
-    // Add method to find future showtimes for a movie
-    @Query("SELECT s FROM Showtime s WHERE s.movieId = :movieId AND s.startTime > :now")
+    // Add method to find future showtimes for a movie, in start time order
+    @Query("SELECT s FROM Showtime s WHERE s.movieId = :movieId AND s.startTime > :now ORDER BY s.startTime, s.id")
     List<Showtime> findFutureShowtimesByMovieId(Long movieId, Instant now);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+/**
+ * Filters for showtime searches. Only the filters a request uses end up in the query, so the
+ * database can pick the composite index that matches them.
+ */
+public final class ShowtimeSpecifications {
+
+    private ShowtimeSpecifications() {
+    }
+
+    public static Specification<Showtime> inTheater(String theater) {
+        return (root, query, builder) -> builder.equal(root.get("theater"), theater);
+    }
+
+    public static Specification<Showtime> forMovie(Long movieId) {
+        return (root, query, builder) -> builder.equal(root.get("movieId"), movieId);
+    }
+
+    // Inclusive lower bound
+    public static Specification<Showtime> startingFrom(Instant from) {
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("startTime"), from);
+    }
+
+    // Exclusive upper bound
+    public static Specification<Showtime> startingBefore(Instant to) {
+        return (root, query, builder) -> builder.lessThan(root.get("startTime"), to);
+    }
+
+    /**
+     * Showtimes that come after the given one in (startTime, id) order; used to seek to the next
+     * page of a search instead of skipping rows with an offset.
+     * The predicate is {@code start_time >= ? AND (start_time > ? OR id > ?)}, rather than the
+     * equivalent disjunction alone, so the database can use the bound on start_time as the start of
+     * an index range. On PostgreSQL, EXPLAIN of a deep page then shows an Index Scan on
+     * idx_showtime_start_id (or the theater or movie index) with {@code Index Cond: (start_time >= ...)}
+     * and the rest as a Filter on the first rows only, instead of a scan from the first showtime.
+     */
+    public static Specification<Showtime> after(Instant startTime, Long id) {
+        return (root, query, builder) -> builder.and(
+                builder.greaterThanOrEqualTo(root.get("startTime"), startTime),
+                builder.or(
+                        builder.greaterThan(root.get("startTime"), startTime),
+                        builder.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,214 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory dictionary between theater names and their integer IDs in the theaters table.
+ * Every name is held once, so all showtimes of a theater share one string, and in-memory
+ * structures can be keyed by the ID instead of hashing and comparing names. Lookups are lock-free;
+ * theaters created elsewhere, e.g. by another instance, are read from the database on first use,
+ * and names found missing are remembered for {@code showtime.theaters.miss-ttl} so that repeated
+ * lookups of unknown names do not reach the database.
+ * <p>
+ * The dictionary reads and writes through the caller's transaction, so it never needs a second
+ * connection. A theater created in a transaction is known only to that transaction until it
+ * commits, and is forgotten if it rolls back together with the showtimes that needed it. This
+ * also keeps the dictionary free of JPA, which maps showtimes through it.
+ */
+@Component
+public class TheaterDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // Names by ID; IDs are small and dense, so an array beats a map. Replaced on growth, under the lock.
+    private volatile String[] names = new String[64];
+    private final Cache<String, Boolean> missing;
+
+    public TheaterDictionary(JdbcTemplate jdbcTemplate,
+                             @Value("${showtime.theaters.miss-ttl:PT30S}") Duration missTtl,
+                             @Value("${showtime.theaters.miss-cache-size:10000}") long missCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(missCacheSize)
+                .expireAfterWrite(missTtl)
+                .build();
+    }
+
+    /**
+     * Returns the ID of the theater with the given name, or null if there is no such theater.
+     */
+    public Integer lookup(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        id = created(false).get(name);
+        if (id != null) {
+            return id;
+        }
+        if (missing.getIfPresent(name) != null) {
+            return null;
+        }
+        id = query("SELECT id, name FROM theaters WHERE name = ?", name);
+        if (id == null) {
+            missing.put(name, Boolean.TRUE);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ID of the theater with the given name, creating the theater in the current
+     * transaction if needed.
+     */
+    public int register(String name) {
+        Integer id = lookup(name);
+        if (id != null) {
+            return id;
+        }
+
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> insert(connection, name));
+        if (inserted == null) {
+            // Most likely another caller created the same theater first, and has committed it
+            id = query("SELECT id, name FROM theaters WHERE name = ?", name);
+            if (id == null) {
+                throw new DataRetrievalFailureException("Could not create theater '" + name + "'");
+            }
+            missing.invalidate(name);
+            return id;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Auto-committed
+            missing.invalidate(name);
+            return remember(inserted, name);
+        }
+        created(true).put(name, inserted);
+        return inserted;
+    }
+
+    /**
+     * Inserts a theater and returns its ID, or null if the insert failed. Within a transaction the
+     * insert runs under a savepoint, so a unique violation from a concurrent creator does not
+     * abort the caller's transaction.
+     */
+    private static Integer insert(Connection connection, String name) throws SQLException {
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO theaters (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, name);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                int id = keys.getInt(1);
+                if (savepoint != null) {
+                    connection.releaseSavepoint(savepoint);
+                }
+                return id;
+            }
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the name of the theater with the given ID.
+     *
+     * @throws IllegalStateException if there is no such theater
+     */
+    public String nameOf(int id) {
+        String[] current = names;
+        if (id >= 0 && id < current.length && current[id] != null) {
+            return current[id];
+        }
+        for (Map.Entry<String, Integer> entry : created(false).entrySet()) {
+            if (entry.getValue() == id) {
+                return entry.getKey();
+            }
+        }
+        if (query("SELECT id, name FROM theaters WHERE id = ?", id) == null) {
+            throw new IllegalStateException("Unknown theater ID " + id);
+        }
+        return names[id];
+    }
+
+    // Rows read here are committed: the transaction's own new theaters are found in created(...) first
+    private Integer query(String sql, Object key) {
+        List<Integer> found = jdbcTemplate.query(sql, (row, rowNumber) -> remember(row.getInt(1), row.getString(2)), key);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Returns the theaters created by the current transaction, which become part of the dictionary
+     * once it commits. Outside a transaction there are none.
+     *
+     * @param bind whether to start tracking them for the current transaction if it has none yet
+     */
+    private Map<String, Integer> created(boolean bind) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Map.of();
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> created = (Map<String, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (created == null && !bind) {
+            return Map.of();
+        }
+        if (created == null) {
+            Map<String, Integer> pending = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach((name, id) -> {
+                        remember(id, name);
+                        missing.invalidate(name);
+                    });
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TheaterDictionary.this);
+                }
+            });
+            created = pending;
+        }
+        return created;
+    }
+
+    private synchronized int remember(int id, String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = names;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+        }
+        current[id] = name;
+        names = current;
+        ids.put(name, id);
+        return id;
+    }
+}
@@ -0,0 +1,29 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a showtime's theater name as the theater's integer ID. Query parameters compared with the
+ * theater are converted too, and a name that is not a theater becomes null, which matches nothing.
+ * Theaters must be registered in the {@link TheaterDictionary} before showtimes referencing them are saved.
+ */
+@Converter
+public class TheaterIdConverter implements AttributeConverter<String, Integer> {
+
+    private final TheaterDictionary theaterDictionary;
+
+    public TheaterIdConverter(TheaterDictionary theaterDictionary) {
+        this.theaterDictionary = theaterDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String theater) {
+        return theater == null ? null : theaterDictionary.lookup(theater);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer theaterId) {
+        return theaterId == null ? null : theaterDictionary.nameOf(theaterId);
+    }
+}
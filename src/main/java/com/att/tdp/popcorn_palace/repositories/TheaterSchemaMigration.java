@@ -0,0 +1,75 @@
+package com.att.tdp.popcorn_palace.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves PostgreSQL databases created before theaters had their own table onto theater IDs.
+ * Hibernate adds the theaters table and the theater_id column but leaves the old theater name
+ * column in place; this fills both from it and drops it, all in one transaction. It also adds the
+ * constraints Hibernate does not maintain for the converted column, and the theater schedule
+ * index, which Hibernate skips while an index of the same name is left on the old column. Other databases get the
+ * current schema from their schema scripts.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class TheaterSchemaMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TheaterSchemaMigration.class);
+
+    private static final String FOREIGN_KEY = "fk_showtime_theater";
+    private static final String SCHEDULE_INDEX = "idx_showtime_theater_start";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TheaterSchemaMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (hasColumn("showtimes", "theater")) {
+                logger.info("Moving showtime theaters into the theaters table");
+                jdbcTemplate.update("INSERT INTO theaters (name) SELECT DISTINCT theater FROM showtimes " +
+                        "WHERE theater IS NOT NULL ORDER BY theater ON CONFLICT (name) DO NOTHING");
+                jdbcTemplate.update("UPDATE showtimes s SET theater_id = t.id FROM theaters t WHERE t.name = s.theater");
+                // Also drops the overlap constraint defined on the name, which is then installed on the ID
+                jdbcTemplate.execute("ALTER TABLE showtimes DROP COLUMN theater CASCADE");
+            }
+
+            // Hibernate skips its index on theater_id while the old index of that name exists on the
+            // name column, and the drop above removes that one; without this the schedule index
+            // would be missing until the next startup
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + SCHEDULE_INDEX + " ON showtimes (theater_id, start_time, id)");
+            jdbcTemplate.execute("ALTER TABLE showtimes ALTER COLUMN theater_id SET NOT NULL");
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, FOREIGN_KEY);
+            if (existing == null || existing == 0) {
+                jdbcTemplate.execute("ALTER TABLE showtimes ADD CONSTRAINT " + FOREIGN_KEY +
+                        " FOREIGN KEY (theater_id) REFERENCES theaters (id)");
+            }
+        });
+    }
+
+    private boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = current_schema() " +
+                        "AND table_name = ? AND column_name = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for booking requests, applied before any seat or database work.
+ * Every request needs a token from its showtime's bucket and from its user's bucket. When a bucket
+ * is empty the request waits in line for up to {@code booking.admission.max-wait}; beyond that it
+ * is rejected at once with a retry hint, so a sold-out premiere cannot slow down other showtimes.
+ * Showtime buckets are hashed onto {@code booking.admission.slots} shared slots, while every
+ * active user gets a bucket of their own, up to {@code booking.admission.user.max-keys} users.
+ */
+@Service
+public class BookingAdmission {
+
+    private final boolean enabled;
+    private final TokenBucketLimiter showtimeLimiter;
+    private final TokenBucketLimiter userLimiter;
+
+    public BookingAdmission(@Value("${booking.admission.enabled:true}") boolean enabled,
+                            @Value("${booking.admission.showtime.rate:200}") double showtimeRate,
+                            @Value("${booking.admission.showtime.burst:400}") int showtimeBurst,
+                            @Value("${booking.admission.user.rate:5}") double userRate,
+                            @Value("${booking.admission.user.burst:10}") int userBurst,
+                            @Value("${booking.admission.max-wait:PT0.5S}") Duration maxWait,
+                            @Value("${booking.admission.slots:4096}") int slots,
+                            @Value("${booking.admission.user.max-keys:100000}") long userMaxKeys) {
+        this.enabled = enabled;
+        // Showtimes share a fixed slot table; a cold showtime colliding with a hot one is throttled with it
+        this.showtimeLimiter = new TokenBucketLimiter(showtimeRate, showtimeBurst, maxWait.toNanos(), slots, System::nanoTime);
+        this.userLimiter = TokenBucketLimiter.perKey(userRate, userBurst, maxWait.toNanos(), userMaxKeys, System::nanoTime);
+    }
+
+    /**
+     * Admits a booking request, waiting for a reserved token if necessary.
+     *
+     * @param showtimeId the showtime being booked
+     * @param userId the user booking
+     * @throws TooManyRequestsException if either limit would make the request wait too long
+     */
+    public void admit(Long showtimeId, UUID userId) {
+        if (!enabled) {
+            return;
+        }
+
+        long userKey = userId.getMostSignificantBits() ^ userId.getLeastSignificantBits();
+        long userWait = userLimiter.acquire(userKey);
+        if (userWait < 0) {
+            throw new TooManyRequestsException(
+                    String.format("Too many booking requests from user %s", userId), Duration.ofNanos(-userWait));
+        }
+
+        long showtimeWait = showtimeLimiter.acquire(showtimeId);
+        if (showtimeWait < 0) {
+            // The request never runs, so the user should not pay for it
+            userLimiter.release(userKey);
+            throw new TooManyRequestsException(
+                    String.format("Too many booking requests for showtime %d", showtimeId), Duration.ofNanos(-showtimeWait));
+        }
+
+        long wait = Math.max(userWait, showtimeWait);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TooManyRequestsException("Booking request was interrupted while queued", Duration.ofNanos(wait));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Persists bookings from independent callers as one batch in one transaction.
+ * If the batch hits a unique violation, each booking is retried in its own transaction so that only
+ * the conflicting bookings fail and the rest still go through.
+ */
+@Service
+public class BookingBatchWriter {
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingBatchWriter(BookingRepository bookingRepository, TransactionTemplate transactionTemplate) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Inserts the bookings; successful bookings get their generated ID set.
+     *
+     * @param bookings the bookings to insert
+     * @return the failure of each booking by position, or null where the booking was inserted;
+     * seats that are already booked fail with {@link ResourceAlreadyExistsException}
+     */
+    public RuntimeException[] insertAll(List<Booking> bookings) {
+        RuntimeException[] failures = new RuntimeException[bookings.size()];
+        bookings.forEach(booking -> booking.setBookingId(null));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookingRepository.saveAllAndFlush(bookings));
+            return failures;
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isUniqueViolation(e) || bookings.size() == 1) {
+                fail(failures, e, bookings);
+                return failures;
+            }
+        } catch (RuntimeException e) {
+            fail(failures, e, bookings);
+            return failures;
+        }
+
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            booking.setBookingId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> bookingRepository.saveAndFlush(booking));
+            } catch (DataIntegrityViolationException e) {
+                failures[i] = translate(e, booking);
+            } catch (RuntimeException e) {
+                failures[i] = e;
+            }
+        }
+        return failures;
+    }
+
+    private void fail(RuntimeException[] failures, RuntimeException e, List<Booking> bookings) {
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = e instanceof DataIntegrityViolationException integrityViolation
+                    ? translate(integrityViolation, bookings.get(i))
+                    : e;
+        }
+    }
+
+    private RuntimeException translate(DataIntegrityViolationException e, Booking booking) {
+        if (ConstraintViolations.isUniqueViolation(e)) {
+            return new ResourceAlreadyExistsException(
+                    String.format("Seat %d for showtime %d is already booked", booking.getSeatNumber(), booking.getShowtimeId())
+            );
+        }
+        return e;
+    }
+}
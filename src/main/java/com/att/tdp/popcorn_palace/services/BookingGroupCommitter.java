@@ -0,0 +1,174 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit stage for single-seat bookings.
+ * Bookings arriving within a short window, or up to a maximum batch size, are written by one
+ * flusher thread as one multi-row insert and one commit, and every caller is completed with the
+ * outcome of its own row.
+ * <p>
+ * Grouped bookings commit in their own transaction, independently of any transaction of the
+ * caller. A caller waits at most {@code booking.group-commit.max-wait} for its group, and bookings
+ * that cannot be written because the stage shuts down fail instead of leaving their callers
+ * waiting. Enabled with {@code booking.group-commit.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.group-commit.enabled", havingValue = "true")
+public class BookingGroupCommitter {
+
+    private final BookingBatchWriter bookingBatchWriter;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final LinkedBlockingQueue<PendingInsert> pending = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public BookingGroupCommitter(BookingBatchWriter bookingBatchWriter,
+                                 @Value("${booking.group-commit.max-delay:PT0.005S}") Duration maxDelay,
+                                 @Value("${booking.group-commit.max-batch-size:50}") int maxBatchSize,
+                                 @Value("${booking.group-commit.max-wait:PT30S}") Duration maxWait) {
+        this.bookingBatchWriter = bookingBatchWriter;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.flusher = Thread.ofPlatform().name("booking-group-commit").daemon().start(this::run);
+    }
+
+    /**
+     * Inserts a booking as part of the next group and waits for that group to commit.
+     *
+     * @return the persisted booking
+     * @throws ResourceAlreadyExistsException if the seat is already booked in the database
+     * @throws IllegalStateException if the stage is shut down or the group takes longer than the
+     * maximum wait; a group that was already being written may still commit the booking
+     */
+    public Booking insert(Booking booking) {
+        PendingInsert insert = new PendingInsert(booking);
+        pending.add(insert);
+        // A shutdown that starts after this check still fails the insert when it drains the queue
+        if (!running && pending.remove(insert)) {
+            throw new IllegalStateException("Group commit is shut down");
+        }
+        try {
+            return insert.result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Group commit failed", e.getCause());
+        } catch (TimeoutException e) {
+            pending.remove(insert);
+            throw new IllegalStateException("Group commit did not complete in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(insert);
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        }
+    }
+
+    private void run() {
+        List<PendingInsert> group = new ArrayList<>(maxBatchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingInsert first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // The window opens with the first booking, so an idle system adds no extra latency
+                // beyond the window and a busy one flushes as soon as the group is full
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatchSize) {
+                    pending.drainTo(group, maxBatchSize - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingInsert next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(group, new IllegalStateException("Group commit is shut down"));
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingInsert> group) {
+        List<Booking> bookings = new ArrayList<>(group.size());
+        group.forEach(insert -> bookings.add(insert.booking));
+
+        RuntimeException[] failures;
+        try {
+            failures = bookingBatchWriter.insertAll(bookings);
+        } catch (RuntimeException e) {
+            failures = new RuntimeException[bookings.size()];
+            Arrays.fill(failures, e);
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            PendingInsert insert = group.get(i);
+            if (failures[i] == null) {
+                insert.result.complete(insert.booking);
+            } else {
+                insert.result.completeExceptionally(failures[i]);
+            }
+        }
+    }
+
+    private static void failAll(List<PendingInsert> inserts, RuntimeException failure) {
+        inserts.forEach(insert -> insert.result.completeExceptionally(failure));
+    }
+
+    /**
+     * Stops taking bookings and gives the flusher up to five seconds to write those already
+     * queued. Anything still queued after that fails, so no caller is left waiting.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        if (flusher.isAlive()) {
+            // Wakes a flusher waiting for the group to fill; a group being written still completes
+            flusher.interrupt();
+        }
+        List<PendingInsert> abandoned = new ArrayList<>();
+        pending.drainTo(abandoned);
+        failAll(abandoned, new IllegalStateException("Group commit is shut down"));
+    }
+
+    private static final class PendingInsert {
+        private final Booking booking;
+        private final CompletableFuture<Booking> result = new CompletableFuture<>();
+
+        private PendingInsert(Booking booking) {
+            this.booking = booking;
+        }
+    }
+}
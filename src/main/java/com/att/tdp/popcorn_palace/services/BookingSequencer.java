@@ -0,0 +1,237 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.models.BookingResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes single-seat bookings through one writer per showtime.
+ * Each showtime has a mailbox that is drained by at most one virtual thread at a time, so seat
+ * conflicts of a hot showtime are decided sequentially in memory and the winners are written as
+ * micro-batches instead of one transaction per request.
+ * <p>
+ * A lane lives only while its showtime has bookings queued or in flight, so idle showtimes cost
+ * nothing, and metrics are reported for all showtimes together to keep their number fixed.
+ * <p>
+ * Bookings made through the sequencer commit in their own transaction, independently of any
+ * transaction of the caller. Enabled with {@code booking.sequencer.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.sequencer.enabled", havingValue = "true")
+public class BookingSequencer {
+
+    private final SeatAllocator seatAllocator;
+    private final BookingBatchWriter bookingBatchWriter;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Counter booked;
+    private final Counter rejected;
+    private final Counter failed;
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BookingSequencer(SeatAllocator seatAllocator, BookingBatchWriter bookingBatchWriter,
+                            MeterRegistry meterRegistry,
+                            @Value("${booking.sequencer.max-batch-size:64}") int maxBatchSize) {
+        this.seatAllocator = seatAllocator;
+        this.bookingBatchWriter = bookingBatchWriter;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("booking.sequencer.batch.size")
+                .description("Bookings persisted per micro-batch")
+                .register(meterRegistry);
+        Gauge.builder("booking.sequencer.queue.depth", depth, AtomicInteger::get)
+                .description("Bookings waiting in the showtimes' mailboxes")
+                .register(meterRegistry);
+        Gauge.builder("booking.sequencer.lanes", lanes, ConcurrentHashMap::size)
+                .description("Showtimes with bookings queued or in flight")
+                .register(meterRegistry);
+        this.booked = outcomeCounter(meterRegistry, "booked");
+        this.rejected = outcomeCounter(meterRegistry, "rejected");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+    }
+
+    /**
+     * Books a validated seat and waits for the showtime's writer to decide and persist it.
+     *
+     * @return the ID of the new booking
+     * @throws ResourceAlreadyExistsException if the seat is already booked
+     */
+    public BookingResponse book(Booking booking) {
+        try {
+            return submit(booking).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues a validated booking in its showtime's mailbox.
+     * Unknown showtimes and seats that are already taken are rejected before queuing.
+     *
+     * @return a future completed once the booking is persisted or rejected
+     */
+    public CompletableFuture<BookingResponse> submit(Booking booking) {
+        if (seatAllocator.isTaken(booking.getShowtimeId(), booking.getSeatNumber())) {
+            return CompletableFuture.failedFuture(seatAlreadyBooked(booking));
+        }
+
+        Request request = new Request(booking);
+        depth.incrementAndGet();
+        // Queued under the map's per-key lock, so a lane being retired never receives a request
+        Lane lane = lanes.compute(booking.getShowtimeId(), (showtimeId, current) -> {
+            Lane target = current != null ? current : new Lane(showtimeId);
+            target.mailbox.add(request);
+            return target;
+        });
+        schedule(lane);
+        return request.result;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.sequencer.requests")
+                .description("Bookings decided by the showtimes' writers")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void schedule(Lane lane) {
+        if (lane.running.compareAndSet(false, true)) {
+            executor.execute(() -> drain(lane));
+        }
+    }
+
+    private void drain(Lane lane) {
+        while (true) {
+            List<Request> batch = new ArrayList<>(maxBatchSize);
+            Request request;
+            while (batch.size() < maxBatchSize && (request = lane.mailbox.poll()) != null) {
+                batch.add(request);
+            }
+            depth.addAndGet(-batch.size());
+            if (!batch.isEmpty()) {
+                process(lane, batch);
+            }
+
+            // Hand the lane back and retire it if idle, then take it again if something arrived in between
+            if (batch.size() < maxBatchSize) {
+                lane.running.set(false);
+                retire(lane);
+                if (lane.mailbox.isEmpty() || !lane.running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an idle lane from the map. A retired lane stays empty, since requests are only
+     * queued on the lane currently in the map.
+     */
+    private void retire(Lane lane) {
+        lanes.computeIfPresent(lane.showtimeId,
+                (showtimeId, current) -> current == lane && lane.mailbox.isEmpty() && !lane.running.get() ? null : current);
+    }
+
+    private void process(Lane lane, List<Request> batch) {
+        List<Request> winners = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            Booking booking = request.booking;
+            try {
+                if (seatAllocator.tryClaim(lane.showtimeId, booking.getSeatNumber())) {
+                    winners.add(request);
+                } else {
+                    rejected.increment();
+                    request.result.completeExceptionally(seatAlreadyBooked(booking));
+                }
+            } catch (RuntimeException e) {
+                failed.increment();
+                request.result.completeExceptionally(e);
+            }
+        }
+        if (winners.isEmpty()) {
+            return;
+        }
+
+        List<Booking> bookings = new ArrayList<>(winners.size());
+        winners.forEach(winner -> bookings.add(winner.booking));
+        RuntimeException[] failures;
+        try {
+            failures = bookingBatchWriter.insertAll(bookings);
+        } catch (RuntimeException e) {
+            failures = new RuntimeException[bookings.size()];
+            Arrays.fill(failures, e);
+        }
+        batchSizes.record(bookings.size());
+
+        for (int i = 0; i < winners.size(); i++) {
+            Request winner = winners.get(i);
+            RuntimeException failure = failures[i];
+            if (failure == null) {
+                booked.increment();
+                winner.result.complete(new BookingResponse(winner.booking.getBookingId()));
+            } else if (failure instanceof ResourceAlreadyExistsException) {
+                // The database already holds this seat, so the in-memory claim stays in place
+                rejected.increment();
+                winner.result.completeExceptionally(failure);
+            } else {
+                seatAllocator.release(lane.showtimeId, winner.booking.getSeatNumber());
+                failed.increment();
+                winner.result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private ResourceAlreadyExistsException seatAlreadyBooked(Booking booking) {
+        return new ResourceAlreadyExistsException(
+                String.format("Seat %d for showtime %d is already booked", booking.getSeatNumber(), booking.getShowtimeId())
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class Lane {
+        private final Long showtimeId;
+        private final ConcurrentLinkedQueue<Request> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private Lane(Long showtimeId) {
+            this.showtimeId = showtimeId;
+        }
+    }
+
+    private static final class Request {
+        private final Booking booking;
+        private final CompletableFuture<BookingResponse> result = new CompletableFuture<>();
+
+        private Request(Booking booking) {
+            this.booking = booking;
+        }
+    }
+}
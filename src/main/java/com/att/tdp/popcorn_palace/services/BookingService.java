@@ -1,46 +1,257 @@
 package com.att.tdp.popcorn_palace.services;
 
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.OperationNotAllowedException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.BatchBookingRequest;
+import com.att.tdp.popcorn_palace.models.BatchBookingResponse;
 import com.att.tdp.popcorn_palace.models.Booking;
 import com.att.tdp.popcorn_palace.models.BookingResponse;
+import com.att.tdp.popcorn_palace.models.SeatHoldResponse;
 import com.att.tdp.popcorn_palace.repositories.BookingRepository;
-import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class BookingService {
 
     private final BookingRepository bookingRepository;
-    private final ShowtimeRepository showtimeRepository;
+    private final SeatAllocator seatAllocator;
+    private final SeatHoldRegistry seatHoldRegistry;
+    private final Optional<BookingSequencer> bookingSequencer;
+    private final Optional<BookingGroupCommitter> bookingGroupCommitter;
 
-    public BookingService(BookingRepository bookingRepository, ShowtimeRepository showtimeRepository) {
+    public BookingService(BookingRepository bookingRepository, SeatAllocator seatAllocator,
+                          SeatHoldRegistry seatHoldRegistry, Optional<BookingSequencer> bookingSequencer,
+                          Optional<BookingGroupCommitter> bookingGroupCommitter) {
         this.bookingRepository = bookingRepository;
-        this.showtimeRepository = showtimeRepository;
+        this.seatAllocator = seatAllocator;
+        this.seatHoldRegistry = seatHoldRegistry;
+        this.bookingSequencer = bookingSequencer;
+        this.bookingGroupCommitter = bookingGroupCommitter;
     }
 
     public BookingResponse bookTicket(Booking booking) {
         // Validate input
         validateBooking(booking);
 
-        // validate showtime exists
-        if (!showtimeRepository.existsById(booking.getShowtimeId())) {
-            throw new ResourceNotFoundException("Showtime", booking.getShowtimeId());
+        // With the sequencer enabled the showtime's single writer decides and persists the booking
+        if (bookingSequencer.isPresent()) {
+            return bookingSequencer.get().book(booking);
+        }
+
+        Long showtimeId = booking.getShowtimeId();
+        int seatNumber = booking.getSeatNumber();
+
+        // Claim the seat in memory; the showtime's seat map is loaded on first use and
+        // rejects unknown showtimes, so taken seats never reach the database
+        if (!seatAllocator.tryClaim(showtimeId, seatNumber)) {
+            throw seatAlreadyBooked(showtimeId, seatNumber);
+        }
+
+        // Grouped inserts commit on their own, so only a direct insert joins the caller's transaction
+        if (bookingGroupCommitter.isPresent()) {
+            return new BookingResponse(insertGrouped(booking).getBookingId());
         }
 
-        // validate seat is available
-        if (bookingRepository.existsByShowtimeIdAndSeatNumber(booking.getShowtimeId(), booking.getSeatNumber())) {
-            throw new ResourceAlreadyExistsException(
-                    String.format("Seat %d for showtime %d is already booked",
-                            booking.getSeatNumber(), booking.getShowtimeId())
-            );
+        Booking newBooking;
+        try {
+            newBooking = insertBooking(booking);
+        } catch (ResourceAlreadyExistsException e) {
+            // The database already holds this seat, so the in-memory claim stays in place
+            throw e;
+        } catch (RuntimeException e) {
+            seatAllocator.release(showtimeId, seatNumber);
+            throw e;
         }
 
-        Booking newBooking = bookingRepository.save(booking);
+        // Free the seat again if an enclosing transaction rolls the insert back
+        TransactionCallbacks.onRollback(() -> seatAllocator.release(showtimeId, seatNumber));
         return new BookingResponse(newBooking.getBookingId());
     }
 
+    /**
+     * Books several seats of one showtime for one user, all or nothing.
+     * The showtime is validated once, every seat is checked against the in-memory seat map, and
+     * the bookings are written as one JDBC batch inside a single transaction.
+     *
+     * @param request the showtime, user and seats to book
+     * @return the IDs of the new bookings, in the order of the requested seats
+     * @throws ResourceAlreadyExistsException if any of the seats is already booked
+     */
+    @Transactional
+    public BatchBookingResponse bookTickets(BatchBookingRequest request) {
+        validateBatchBooking(request);
+
+        claimSeats(request.getShowtimeId(), request.getSeatNumbers());
+        return insertClaimedSeats(request.getShowtimeId(), request.getUserId(), request.getSeatNumbers());
+    }
+
+    /**
+     * Holds seats for a user until they confirm or release the hold, or the hold expires.
+     * Held seats are rejected for everyone else without touching the database.
+     *
+     * @param request the showtime, user and seats to hold
+     * @return the hold and the time it expires
+     * @throws ResourceAlreadyExistsException if any of the seats is already booked or held
+     */
+    public SeatHoldResponse holdSeats(BatchBookingRequest request) {
+        validateBatchBooking(request);
+
+        claimSeats(request.getShowtimeId(), request.getSeatNumbers());
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.hold(
+                request.getShowtimeId(), request.getUserId(), request.getSeatNumbers());
+        return new SeatHoldResponse(hold.holdId(), hold.showtimeId(), hold.seatNumbers(), hold.expiresAt());
+    }
+
+    /**
+     * Turns a live hold into bookings.
+     *
+     * @param holdId the hold to confirm
+     * @param userId the user confirming, who must be the one who took the hold
+     * @return the IDs of the new bookings
+     * @throws ResourceNotFoundException if the hold does not exist or has expired
+     * @throws OperationNotAllowedException if the hold belongs to another user
+     */
+    @Transactional
+    public BatchBookingResponse confirmHold(UUID holdId, UUID userId) {
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.take(holdId, userId);
+        return insertClaimedSeats(hold.showtimeId(), hold.userId(), hold.seatNumbers());
+    }
+
+    /**
+     * Gives up a live hold and frees its seats.
+     *
+     * @param holdId the hold to release
+     * @param userId the user releasing, who must be the one who took the hold
+     * @throws ResourceNotFoundException if the hold does not exist or has expired
+     * @throws OperationNotAllowedException if the hold belongs to another user
+     */
+    public void releaseHold(UUID holdId, UUID userId) {
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.take(holdId, userId);
+        releaseSeats(hold.showtimeId(), hold.seatNumbers());
+    }
+
+    /**
+     * Claims all seats in the seat map or none of them.
+     *
+     * @throws ResourceAlreadyExistsException listing the seats that are already taken
+     */
+    private void claimSeats(Long showtimeId, List<Integer> seatNumbers) {
+        List<Integer> claimed = new ArrayList<>(seatNumbers.size());
+        List<Integer> taken = new ArrayList<>();
+        for (Integer seatNumber : seatNumbers) {
+            if (seatAllocator.tryClaim(showtimeId, seatNumber)) {
+                claimed.add(seatNumber);
+            } else {
+                taken.add(seatNumber);
+            }
+        }
+
+        if (!taken.isEmpty()) {
+            releaseSeats(showtimeId, claimed);
+            throw seatsAlreadyBooked(showtimeId, taken);
+        }
+    }
+
+    /**
+     * Inserts bookings for seats that are already claimed in the seat map as one JDBC batch.
+     * The claims are released if the insert fails or the surrounding transaction rolls back.
+     */
+    private BatchBookingResponse insertClaimedSeats(Long showtimeId, UUID userId, List<Integer> seatNumbers) {
+        List<Booking> bookings = new ArrayList<>(seatNumbers.size());
+        for (Integer seatNumber : seatNumbers) {
+            bookings.add(new Booking(showtimeId, seatNumber, userId));
+        }
+
+        List<Booking> newBookings;
+        try {
+            newBookings = bookingRepository.saveAllAndFlush(bookings);
+        } catch (DataIntegrityViolationException e) {
+            releaseSeats(showtimeId, seatNumbers);
+            if (ConstraintViolations.isUniqueViolation(e)) {
+                // Some seat was booked behind the seat map's back; only the batch's own claims were
+                // released, and the booked seats are added on next use, so other users' holds stay
+                seatAllocator.resync(showtimeId);
+                throw seatsAlreadyBooked(showtimeId, seatNumbers);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            releaseSeats(showtimeId, seatNumbers);
+            throw e;
+        }
+
+        TransactionCallbacks.onRollback(() -> releaseSeats(showtimeId, seatNumbers));
+
+        List<UUID> bookingIds = new ArrayList<>(newBookings.size());
+        for (Booking newBooking : newBookings) {
+            bookingIds.add(newBooking.getBookingId());
+        }
+        return new BatchBookingResponse(bookingIds);
+    }
+
+    private void releaseSeats(Long showtimeId, List<Integer> seatNumbers) {
+        seatNumbers.forEach(seatNumber -> seatAllocator.release(showtimeId, seatNumber));
+    }
+
+    /**
+     * Writes the booking with a single INSERT. Booking IDs are always generated by the server, so
+     * the entity is persisted rather than merged, and the unique (showtime_id, seat_number)
+     * constraint rejects double bookings that slip past the in-memory seat map, e.g. from another
+     * application instance.
+     *
+     * @param booking the booking to insert
+     * @return the persisted booking
+     * @throws ResourceAlreadyExistsException if the seat is already booked in the database
+     */
+    private Booking insertBooking(Booking booking) {
+        booking.setBookingId(null);
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isUniqueViolation(e)) {
+                throw seatAlreadyBooked(booking.getShowtimeId(), booking.getSeatNumber());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the booking through the group commit stage, together with concurrent bookings.
+     * The seat is released unless the failure is a seat the database already holds.
+     */
+    private Booking insertGrouped(Booking booking) {
+        try {
+            return bookingGroupCommitter.get().insert(booking);
+        } catch (ResourceAlreadyExistsException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            seatAllocator.release(booking.getShowtimeId(), booking.getSeatNumber());
+            throw e;
+        }
+    }
+
+    private ResourceAlreadyExistsException seatAlreadyBooked(Long showtimeId, Integer seatNumber) {
+        return new ResourceAlreadyExistsException(
+                String.format("Seat %d for showtime %d is already booked", seatNumber, showtimeId)
+        );
+    }
+
+    private ResourceAlreadyExistsException seatsAlreadyBooked(Long showtimeId, List<Integer> seatNumbers) {
+        return new ResourceAlreadyExistsException(
+                String.format("Seats %s for showtime %d are not all available", seatNumbers, showtimeId)
+        );
+    }
+
     /**
      * Validates the booking data.
      *
@@ -68,4 +279,38 @@ public class BookingService {
             throw new InvalidResourceException("userId", "must not be null");
         }
     }
+
+    /**
+     * Validates a batch booking request.
+     *
+     * @param request the request to validate
+     * @throws InvalidResourceException if the request is invalid
+     */
+    private void validateBatchBooking(BatchBookingRequest request) {
+        if (request == null) {
+            throw new InvalidResourceException("Batch booking cannot be null");
+        }
+
+        if (request.getShowtimeId() == null) {
+            throw new InvalidResourceException("showtimeId", "must not be null");
+        }
+
+        if (request.getUserId() == null) {
+            throw new InvalidResourceException("userId", "must not be null");
+        }
+
+        if (request.getSeatNumbers() == null || request.getSeatNumbers().isEmpty()) {
+            throw new InvalidResourceException("seatNumbers", "must not be empty");
+        }
+
+        Set<Integer> distinctSeats = new HashSet<>();
+        for (Integer seatNumber : request.getSeatNumbers()) {
+            if (seatNumber == null || seatNumber <= 0) {
+                throw new InvalidResourceException("seatNumbers", "must contain only positive numbers");
+            }
+            if (!distinctSeats.add(seatNumber)) {
+                throw new InvalidResourceException("seatNumbers", "must not contain duplicates");
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/**
+ * Classifies database constraint violations by their SQLSTATE so that writes can rely on the
+ * database constraints instead of checking before they insert.
+ */
+final class ConstraintViolations {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private ConstraintViolations() {
+    }
+
+    static boolean isUniqueViolation(DataIntegrityViolationException ex) {
+        return UNIQUE_VIOLATION.equals(sqlState(ex));
+    }
+
+    /**
+     * Tells whether a write was rejected by the showtime no-overlap constraint. Databases that
+     * enforce it with a trigger may wrap the trigger's error, so its message is checked as well.
+     */
+    static boolean isShowtimeOverlapViolation(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+            if (cause.getMessage() != null && cause.getMessage().contains(ShowtimeRepository.NO_OVERLAP_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sqlState(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,178 @@
+package com.att.tdp.popcorn_palace.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hashed timing wheel for large numbers of short-lived timeouts.
+ * Scheduling and cancelling are O(1) and allocate a single object; one worker thread advances the
+ * wheel once per tick and runs the timeouts of the current bucket, so expiry is accurate to one tick.
+ * Cancelled timeouts are dropped the next time the worker visits their bucket.
+ */
+public class HashedWheelTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final long startTime;
+    private final Thread worker;
+    private long tick;
+
+    /**
+     * @param name      name of the worker thread
+     * @param tick      duration of one tick, which is also the expiry resolution
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String name, Duration tick, int wheelSize) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be positive");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     *
+     * @return a handle that can cancel the task before it runs
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (stopped.get()) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(delay.toNanos(), 0);
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread; timeouts that have not expired yet are discarded.
+     */
+    public void stop() {
+        if (stopped.compareAndSet(false, true)) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!stopped.get()) {
+            if (!waitForNextTick()) {
+                return;
+            }
+            transferPending();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (stopped.get()) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // Deadlines that already passed go into the current bucket
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        int i = 0;
+        while (i < bucket.size()) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.isCancelled() || timeout.remainingRounds <= 0) {
+                // Swap-remove keeps removal O(1); bucket order does not matter
+                bucket.set(i, bucket.get(bucket.size() - 1));
+                bucket.remove(bucket.size() - 1);
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+                i++;
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return true if the task will not run, false if it already ran or was cancelled
+         */
+        public boolean cancel() {
+            return done.compareAndSet(false, true);
+        }
+
+        public boolean isCancelled() {
+            return done.get();
+        }
+
+        private void expire() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Timeout task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.TooManyRequestsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.models.BookingResponse;
+import com.att.tdp.popcorn_palace.models.IdempotencyRecord;
+import com.att.tdp.popcorn_palace.repositories.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of booking requests sent with an {@code Idempotency-Key} header.
+ * Keys live in a bounded in-memory cache with a TTL and, when {@code booking.idempotency.persistent}
+ * is enabled, in the {@code idempotency_keys} table so retries survive restarts and reach any
+ * instance. Stored keys older than the TTL are deleted every {@code booking.idempotency.purge-interval}.
+ * Concurrent requests with the same key wait for the first one instead of booking twice, for up
+ * to {@code booking.idempotency.max-wait}; a retry still waiting then is told to try again later.
+ */
+@Service
+public class IdempotencyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyCache.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration ttl;
+    private final boolean persistent;
+    private final long maxWaitNanos;
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyCache(IdempotencyRecordRepository idempotencyRecordRepository,
+                            @Value("${booking.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${booking.idempotency.max-size:100000}") long maxSize,
+                            @Value("${booking.idempotency.persistent:false}") boolean persistent,
+                            @Value("${booking.idempotency.max-wait:PT5S}") Duration maxWait) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = ttl;
+        this.persistent = persistent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the response of an earlier request with the same key, or runs the booking and
+     * remembers its response. Failed bookings are not remembered, so they can be retried.
+     *
+     * @param idempotencyKey the client supplied key
+     * @param booking the requested booking, which must match the one the key was first used for
+     * @param action books the seat
+     * @throws InvalidResourceException if the key was used for a different booking
+     * @throws TooManyRequestsException if an earlier request with the key is still running
+     */
+    public BookingResponse execute(String idempotencyKey, Booking booking, Supplier<BookingResponse> action) {
+        Entry entry = new Entry(booking);
+        Entry existing = entries.asMap().putIfAbsent(idempotencyKey, entry);
+        if (existing != null) {
+            return replay(idempotencyKey, existing, booking);
+        }
+
+        try {
+            BookingResponse response = findPersisted(idempotencyKey, booking).orElseGet(() -> {
+                BookingResponse created = action.get();
+                persist(idempotencyKey, booking, created);
+                return created;
+            });
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(idempotencyKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private BookingResponse replay(String idempotencyKey, Entry existing, Booking booking) {
+        checkSameBooking(idempotencyKey, existing.showtimeId, existing.seatNumber, existing.userId, booking);
+        try {
+            return existing.response.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Only this retry gives up; the first request still completes for everyone else
+            throw stillRunning(idempotencyKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning(idempotencyKey);
+        }
+    }
+
+    private TooManyRequestsException stillRunning(String idempotencyKey) {
+        return new TooManyRequestsException(String.format(
+                "A request with Idempotency-Key '%s' is still in progress", idempotencyKey), Duration.ofSeconds(1));
+    }
+
+    private Optional<BookingResponse> findPersisted(String idempotencyKey, Booking booking) {
+        if (!persistent) {
+            return Optional.empty();
+        }
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .filter(record -> record.getCreatedAt().plus(ttl).isAfter(Instant.now()))
+                .map(record -> {
+                    checkSameBooking(idempotencyKey, record.getShowtimeId(), record.getSeatNumber(), record.getUserId(), booking);
+                    return new BookingResponse(record.getBookingId());
+                });
+    }
+
+    private void persist(String idempotencyKey, Booking booking, BookingResponse response) {
+        if (!persistent) {
+            return;
+        }
+        // The booking is already committed; losing the key only means a later retry gets a conflict
+        try {
+            idempotencyRecordRepository.save(new IdempotencyRecord(idempotencyKey, response.getBookingId(),
+                    booking.getShowtimeId(), booking.getSeatNumber(), booking.getUserId(), Instant.now()));
+        } catch (DataAccessException e) {
+            logger.warn("Could not persist idempotency key {}", idempotencyKey, e);
+        }
+    }
+
+    /**
+     * Deletes stored keys older than the TTL, which lookups already ignore.
+     *
+     * @return the number of keys deleted
+     */
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval:PT1H}",
+            initialDelayString = "${booking.idempotency.purge-interval:PT1H}")
+    public int purgeExpired() {
+        if (!persistent) {
+            return 0;
+        }
+        try {
+            int purged = idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+            logger.debug("Purged {} expired idempotency keys", purged);
+            return purged;
+        } catch (DataAccessException e) {
+            // The next run retries; until then expired keys only take up space
+            logger.warn("Could not purge expired idempotency keys", e);
+            return 0;
+        }
+    }
+
+    private void checkSameBooking(String idempotencyKey, Long showtimeId, Integer seatNumber, UUID userId, Booking booking) {
+        if (!Objects.equals(showtimeId, booking.getShowtimeId())
+                || !Objects.equals(seatNumber, booking.getSeatNumber())
+                || !Objects.equals(userId, booking.getUserId())) {
+            throw new InvalidResourceException("Idempotency-Key",
+                    String.format("'%s' was already used for a different booking", idempotencyKey));
+        }
+    }
+
+    private static final class Entry {
+        private final Long showtimeId;
+        private final Integer seatNumber;
+        private final UUID userId;
+        private final CompletableFuture<BookingResponse> response = new CompletableFuture<>();
+
+        private Entry(Booking booking) {
+            this.showtimeId = booking.getShowtimeId();
+            this.seatNumber = booking.getSeatNumber();
+            this.userId = booking.getUserId();
+        }
+    }
+}
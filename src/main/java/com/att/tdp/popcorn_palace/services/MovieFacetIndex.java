@@ -0,0 +1,182 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieCatalog;
+import com.att.tdp.popcorn_palace.models.MovieFilterResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap index over the catalog snapshot for filtering movies by genre, release year range and
+ * minimum rating, with facet counts.
+ * Movies are numbered by their position in ID order. Every genre and every release year has a
+ * bitmap of its movies, and ratings are kept as a sorted column, so a minimum rating is a prefix
+ * of it. A filter is then an intersection of bitmaps and a facet count is the cardinality of one.
+ * The index is built from a {@link MovieCatalog} and rebuilt when the catalog moves to a new
+ * snapshot, so it never has to be updated in place.
+ */
+@Service
+public class MovieFacetIndex {
+
+    private volatile Facets facets;
+
+    /**
+     * Filters the catalog and counts its facets. Null filters match every movie.
+     *
+     * @param genre genre to match, ignoring case
+     * @param limit most movies to return; the total counts all matches
+     */
+    public MovieFilterResult filter(MovieCatalog catalog, String genre, Integer minYear, Integer maxYear,
+                                    Double minRating, int limit) {
+        Facets current = facets(catalog);
+
+        BitSet genreBits = genre == null ? current.all() : current.genre(genre);
+        BitSet yearBits = minYear == null && maxYear == null ? current.all()
+                : current.years(minYear == null ? Integer.MIN_VALUE : minYear, maxYear == null ? Integer.MAX_VALUE : maxYear);
+        BitSet ratingBits = minRating == null ? current.all() : current.ratingAtLeast(minRating);
+
+        // Each facet is counted under the other filters only, so it shows what picking it would give
+        BitSet withoutGenre = and(yearBits, ratingBits);
+        BitSet withoutYear = and(genreBits, ratingBits);
+        BitSet matches = and(withoutGenre, genreBits);
+
+        Map<String, Integer> genreCounts = new LinkedHashMap<>();
+        current.genreBits.forEach((key, bits) -> {
+            int count = cardinality(withoutGenre, bits);
+            if (count > 0) {
+                genreCounts.put(current.genreNames.get(key), count);
+            }
+        });
+        Map<Integer, Integer> yearCounts = new LinkedHashMap<>();
+        for (int i = 0; i < current.years.length; i++) {
+            int count = cardinality(withoutYear, current.yearBits[i]);
+            if (count > 0) {
+                yearCounts.put(current.years[i], count);
+            }
+        }
+
+        List<Movie> movies = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int position = matches.nextSetBit(0); position >= 0 && movies.size() < limit; position = matches.nextSetBit(position + 1)) {
+            movies.add(current.movies.get(position));
+        }
+        return new MovieFilterResult(movies, matches.cardinality(), genreCounts, yearCounts);
+    }
+
+    private Facets facets(MovieCatalog catalog) {
+        Facets current = facets;
+        if (current == null || current.catalog != catalog) {
+            // Concurrent readers of a new snapshot may each build it; they build the same index
+            current = new Facets(catalog);
+            facets = current;
+        }
+        return current;
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+
+    private static int cardinality(BitSet a, BitSet b) {
+        return a.intersects(b) ? and(a, b).cardinality() : 0;
+    }
+
+    static String genreKey(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Facets {
+        private final MovieCatalog catalog;
+        private final List<Movie> movies;
+        private final BitSet all;
+        // Genres in alphabetical order, with the spelling of their first movie
+        private final Map<String, BitSet> genreBits = new TreeMap<>();
+        private final Map<String, String> genreNames = new HashMap<>();
+        // Distinct release years in ascending order, with their bitmaps
+        private final int[] years;
+        private final BitSet[] yearBits;
+        // Positions sorted by descending rating, and the ratings in the same order
+        private final int[] byRating;
+        private final double[] ratings;
+
+        Facets(MovieCatalog catalog) {
+            this.catalog = catalog;
+            this.movies = catalog.getMovies().stream().sorted(Comparator.comparing(Movie::getId)).toList();
+            int size = movies.size();
+            this.all = new BitSet(size);
+            all.set(0, size);
+
+            TreeMap<Integer, BitSet> yearMap = new TreeMap<>();
+            for (int position = 0; position < size; position++) {
+                Movie movie = movies.get(position);
+                String key = genreKey(movie.getGenre());
+                genreBits.computeIfAbsent(key, k -> new BitSet(size)).set(position);
+                genreNames.putIfAbsent(key, movie.getGenre().trim());
+                yearMap.computeIfAbsent(movie.getReleaseYear(), k -> new BitSet(size)).set(position);
+            }
+            this.years = yearMap.keySet().stream().mapToInt(Integer::intValue).toArray();
+            this.yearBits = yearMap.values().toArray(new BitSet[0]);
+
+            Integer[] order = new Integer[size];
+            for (int position = 0; position < size; position++) {
+                order[position] = position;
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer position) -> movies.get(position).getRating()).reversed());
+            this.byRating = new int[size];
+            this.ratings = new double[size];
+            for (int i = 0; i < size; i++) {
+                byRating[i] = order[i];
+                ratings[i] = movies.get(order[i]).getRating();
+            }
+        }
+
+        BitSet all() {
+            return all;
+        }
+
+        BitSet genre(String genre) {
+            BitSet bits = genreBits.get(genreKey(genre));
+            return bits == null ? new BitSet() : bits;
+        }
+
+        BitSet years(int from, int to) {
+            BitSet bits = new BitSet(movies.size());
+            // Years are sorted, so the range is a run of them
+            int first = Arrays.binarySearch(years, from);
+            for (int i = first >= 0 ? first : -first - 1; i < years.length && years[i] <= to; i++) {
+                bits.or(yearBits[i]);
+            }
+            return bits;
+        }
+
+        BitSet ratingAtLeast(double minRating) {
+            // Ratings descend, so the matches are the prefix before the first rating below the minimum
+            int low = 0;
+            int high = ratings.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ratings[middle] >= minRating) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            BitSet bits = new BitSet(movies.size());
+            for (int i = 0; i < low; i++) {
+                bits.set(byRating[i]);
+            }
+            return bits;
+        }
+    }
+}
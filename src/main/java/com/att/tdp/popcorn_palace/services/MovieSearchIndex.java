@@ -0,0 +1,277 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.repositories.MovieStreamReader;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over movie titles for search-as-you-type.
+ * Every word of a normalized title is padded with two leading spaces and one trailing space and
+ * cut into overlapping three-character grams, so the grams of a word's first letters stand for
+ * "starts with". A query is cut the same way, except that its last word gets no trailing space
+ * since it may still be typed. Titles sharing at least half of the query's grams are ranked by
+ * their similarity to it, with titles that start with or contain the query first, which also
+ * finds titles with a typo or two.
+ * <p>
+ * The index is loaded from the database on first use and then kept in sync by
+ * {@link MovieService}. Searches share a read lock; the rare writes take the write lock.
+ */
+@Service
+public class MovieSearchIndex {
+
+    private final MovieStreamReader movieStreamReader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private boolean loaded;
+    private final List<Entry> entries = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    public MovieSearchIndex(MovieStreamReader movieStreamReader) {
+        this.movieStreamReader = movieStreamReader;
+    }
+
+    /**
+     * Returns up to limit movies whose titles match the query best, best first. The movies are
+     * shared with other readers and must not be modified.
+     */
+    public List<Movie> search(String query, int limit) {
+        String normalized = Movie.normalizeTitle(query);
+        long[] queryGrams = grams(normalized, false);
+        if (queryGrams.length == 0) {
+            return List.of();
+        }
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            // Count the grams each title shares with the query, remembering which titles were hit
+            int[] shared = new int[entries.size()];
+            int[] hits = new int[16];
+            int hitCount = 0;
+            for (long gram : queryGrams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    if (shared[slot]++ == 0) {
+                        if (hitCount == hits.length) {
+                            hits = Arrays.copyOf(hits, hitCount * 2);
+                        }
+                        hits[hitCount++] = slot;
+                    }
+                }
+            }
+
+            // Keep the best matches in a heap whose head is the worst of them
+            int needed = (queryGrams.length + 1) / 2;
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.BEST_FIRST.reversed());
+            for (int i = 0; i < hitCount; i++) {
+                int slot = hits[i];
+                if (shared[slot] < needed) {
+                    continue;
+                }
+                Entry entry = entries.get(slot);
+                best.add(new Match(entry, score(entry, normalized, queryGrams.length, shared[slot])));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(Match.BEST_FIRST);
+            return matches.stream().map(match -> match.entry.movie).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a movie, or replaces the one with the same ID.
+     */
+    public void put(Movie movie) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            index(movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the movie with the given ID, if it is indexed.
+     */
+    public void remove(Long id) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index so it is reloaded from the database on next use, e.g. after a rollback.
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            entries.clear();
+            freeSlots.clear();
+            slotsById.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Writers wait here for the load too, so none of their changes is lost to it
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                movieStreamReader.forEach(this::index);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Movie movie) {
+        unindex(movie.getId());
+        String normalized = Movie.normalizeTitle(movie.getTitle());
+        Entry entry = new Entry(MovieService.copy(movie), normalized, grams(normalized, true));
+
+        Integer free = freeSlots.poll();
+        int slot;
+        if (free != null) {
+            slot = free;
+            entries.set(slot, entry);
+        } else {
+            slot = entries.size();
+            entries.add(entry);
+        }
+        slotsById.put(movie.getId(), slot);
+        for (long gram : entry.grams) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+    }
+
+    private void unindex(Long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (long gram : entries.get(slot).grams) {
+            Postings list = postings.get(gram);
+            list.remove(slot);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        entries.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    // Similarity of the grams, raised for titles starting with or containing the query
+    private static double score(Entry entry, String query, int queryGrams, int shared) {
+        double score = (double) shared / (queryGrams + entry.grams.length - shared);
+        if (entry.normalized.startsWith(query)) {
+            score += 2;
+        } else if (entry.normalized.contains(query)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    /**
+     * Cuts a normalized text into its distinct word trigrams, each packed into a long.
+     *
+     * @param complete whether the last word is complete, or may still be typed
+     */
+    static long[] grams(String text, boolean complete) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        Set<Long> grams = new LinkedHashSet<>();
+        String[] words = text.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            String padded = "  " + words[w] + (complete || w < words.length - 1 ? " " : "");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        return grams.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static final class Entry {
+        private final Movie movie;
+        private final String normalized;
+        private final long[] grams;
+
+        Entry(Movie movie, String normalized, long[] grams) {
+            this.movie = movie;
+            this.normalized = normalized;
+            this.grams = grams;
+        }
+    }
+
+    private record Match(Entry entry, double score) {
+        // Higher score, then shorter title, then lower ID
+        static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble(Match::score).reversed()
+                .thenComparingInt(match -> match.entry.normalized.length())
+                .thenComparing(match -> match.entry.movie.getId());
+    }
+
+    // The slots of the titles containing one gram, unordered
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    // Order does not matter, so the last slot fills the gap
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
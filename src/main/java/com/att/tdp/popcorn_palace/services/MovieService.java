@@ -5,37 +5,206 @@ import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
 import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieCatalog;
+import com.att.tdp.popcorn_palace.models.MovieFilterResult;
+import com.att.tdp.popcorn_palace.models.MoviePage;
+import com.att.tdp.popcorn_palace.models.Showtime;
 import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import com.att.tdp.popcorn_palace.repositories.MovieStreamReader;
 import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MovieService {
 
     private final MovieRepository movieRepository;
     private final ShowtimeRepository showtimeRepository;
+    private final MovieShowtimeCache movieShowtimeCache;
+    private final ObjectMapper objectMapper;
+    private final MovieStreamReader movieStreamReader;
+    private final MovieTitleIndex movieTitleIndex;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieFacetIndex movieFacetIndex;
 
-    public MovieService(MovieRepository movieRepository, ShowtimeRepository showtimeRepository) {
+    // Catalog snapshot, rebuilt on the first read after a movie changes; a snapshot is only
+    // served while its version is the current one
+    private final Object catalogLock = new Object();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    // Versions restart with the process, so ETags also carry a per-process prefix
+    private final String catalogEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private volatile MovieCatalog catalog;
+
+    public MovieService(MovieRepository movieRepository, ShowtimeRepository showtimeRepository,
+                        MovieShowtimeCache movieShowtimeCache, ObjectMapper objectMapper,
+                        MovieStreamReader movieStreamReader, MovieTitleIndex movieTitleIndex,
+                        MovieSearchIndex movieSearchIndex, MovieFacetIndex movieFacetIndex) {
         this.movieRepository = movieRepository;
         this.showtimeRepository = showtimeRepository;
+        this.movieShowtimeCache = movieShowtimeCache;
+        this.objectMapper = objectMapper;
+        this.movieStreamReader = movieStreamReader;
+        this.movieTitleIndex = movieTitleIndex;
+        this.movieSearchIndex = movieSearchIndex;
+        this.movieFacetIndex = movieFacetIndex;
     }
 
     public List<Movie> getAllMovies() {
-        return movieRepository.findAll();
+        return getCatalog().getMovies();
+    }
+
+    /**
+     * Returns the current catalog snapshot, loading and rendering it if a movie changed since the
+     * last one. Snapshots are shared by all readers and must not be modified.
+     */
+    public MovieCatalog getCatalog() {
+        MovieCatalog current = catalog;
+        if (current != null && current.getVersion() == catalogVersion.get()) {
+            return current;
+        }
+
+        // One rebuild at a time; readers arriving meanwhile get its result
+        synchronized (catalogLock) {
+            long version = catalogVersion.get();
+            current = catalog;
+            if (current != null && current.getVersion() == version) {
+                return current;
+            }
+            List<Movie> movies = movieRepository.findAll().stream().map(MovieService::copy).toList();
+            current = new MovieCatalog(version, "\"" + catalogEpoch + "-" + version + "\"", movies, render(movies));
+            // Published even if a movie changed during the load: the version has moved on then, so
+            // the snapshot is never served again, however the change and this write interleave
+            catalog = current;
+            return current;
+        }
+    }
+
+    /**
+     * Returns up to limit movies with IDs above afterId, in ID order.
+     *
+     * @param afterId the nextAfterId of the previous page, or null for the first page
+     */
+    public MoviePage getMoviePage(Long afterId, int limit) {
+        // One extra row tells whether there is a next page
+        List<Movie> movies = movieRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(limit + 1));
+        if (movies.size() <= limit) {
+            return new MoviePage(movies, null);
+        }
+        List<Movie> page = movies.subList(0, limit);
+        return new MoviePage(page, page.get(limit - 1).getId());
+    }
+
+    /**
+     * Writes the whole catalog to the stream as a JSON array, one movie at a time as it is read
+     * from the database, so memory use does not depend on the size of the catalog.
+     */
+    public void streamMovies(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            // The stream belongs to the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            movieStreamReader.forEach(movie -> {
+                try {
+                    generator.writeObject(movie);
+                } catch (IOException e) {
+                    // Usually the client went away; this also ends the database read
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns up to limit movies whose titles best match the query, best first, from the in-memory
+     * search index. Titles starting with the query come first, and small typos are tolerated.
+     */
+    public List<Movie> searchMovies(String query, int limit) {
+        return movieSearchIndex.search(query, limit);
+    }
+
+    /**
+     * Filters the catalog snapshot by genre, release year range and minimum rating, with facet
+     * counts, using the bitmap index of the snapshot. Null filters match every movie.
+     */
+    public MovieFilterResult filterMovies(String genre, Integer minYear, Integer maxYear, Double minRating, int limit) {
+        return movieFacetIndex.filter(getCatalog(), genre, minYear, maxYear, minRating, limit);
+    }
+
+    private byte[] render(List<Movie> movies) {
+        try {
+            return objectMapper.writeValueAsBytes(movies);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render the movie catalog", e);
+        }
+    }
+
+    // Detached copies, so that later changes to managed entities cannot leak into the snapshot
+    static Movie copy(Movie movie) {
+        Movie copy = new Movie(movie.getTitle(), movie.getGenre(), movie.getDuration(), movie.getRating(), movie.getReleaseYear());
+        copy.setId(movie.getId());
+        return copy;
+    }
+
+    /**
+     * Moves the catalog to a new version, which retires the current snapshot. Done again when the
+     * surrounding transaction completes, since a reader may have rebuilt the snapshot in between
+     * without seeing the uncommitted change.
+     */
+    private void catalogChanged() {
+        catalogVersion.incrementAndGet();
+        TransactionCallbacks.afterCompletion(catalogVersion::incrementAndGet);
+    }
+
+    /**
+     * Returns the showtimes of a movie that have not started yet, sorted by start time, from the
+     * upcoming showtimes cache.
+     *
+     * @throws ResourceNotFoundException if there is no such movie
+     */
+    public List<Showtime> getUpcomingShowtimes(Long movieId) {
+        List<Showtime> showtimes = movieShowtimeCache.get(movieId, Instant.now());
+        // Only a movie without upcoming showtimes costs a lookup, to tell it from a missing movie
+        if (showtimes.isEmpty() && !movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie", movieId);
+        }
+        return showtimes;
     }
 
     public Movie addMovie(Movie movie) {
         // Validate movie data
         validateMovie(movie);
 
-        // Check if movie with same title already exists
-        if (movieRepository.existsByTitle(movie.getTitle())) {
+        // Check if movie with same title already exists, against the in-memory title index
+        if (movieTitleIndex.lookup(movie.getTitle()) != null) {
             throw new ResourceAlreadyExistsException("Movie", movie.getTitle());
         }
 
-        return movieRepository.save(movie);
+        Movie savedMovie;
+        try {
+            savedMovie = movieRepository.save(movie);
+        } catch (DataIntegrityViolationException e) {
+            throw titleTaken(e, movie.getTitle());
+        }
+        movieTitleIndex.put(savedMovie.getTitle(), savedMovie.getId());
+        movieSearchIndex.put(savedMovie);
+        TransactionCallbacks.onRollback(this::resetIndexes);
+        catalogChanged();
+        return savedMovie;
     }
 
     public void updateMovie(String title, Movie updatedMovie) {
@@ -43,40 +212,81 @@ public class MovieService {
         validateMovie(updatedMovie);
 
         // Get existing movie
-        Movie movie = movieRepository.findByTitle(title)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", title));
+        Long movieId = movieTitleIndex.lookup(title);
+        if (movieId == null) {
+            throw new ResourceNotFoundException("Movie", title);
+        }
 
         // Check if new title conflicts with existing movie (excluding this one)
-        if (!updatedMovie.getTitle().equals(title) && movieRepository.existsByTitle(updatedMovie.getTitle())) {
+        Long otherId = movieTitleIndex.lookup(updatedMovie.getTitle());
+        if (otherId != null && !otherId.equals(movieId)) {
             throw new ResourceAlreadyExistsException("Movie", updatedMovie.getTitle());
         }
 
-        // Update movie properties
-        movie.setTitle(updatedMovie.getTitle());
-        movie.setGenre(updatedMovie.getGenre());
-        movie.setRating(updatedMovie.getRating());
-        movie.setDuration(updatedMovie.getDuration());
-        movie.setReleaseYear(updatedMovie.getReleaseYear());
+        // Update movie properties in a single statement
+        int updated;
+        try {
+            updated = movieRepository.updateMovie(movieId, updatedMovie.getTitle(), Movie.normalizeTitle(updatedMovie.getTitle()),
+                    updatedMovie.getGenre(), updatedMovie.getDuration(), updatedMovie.getRating(), updatedMovie.getReleaseYear());
+        } catch (DataIntegrityViolationException e) {
+            throw titleTaken(e, updatedMovie.getTitle());
+        }
+        if (updated == 0) {
+            // Deleted elsewhere, so the index is out of date
+            resetIndexes();
+            throw new ResourceNotFoundException("Movie", title);
+        }
 
-        movieRepository.save(movie);
+        movieTitleIndex.remove(title, movieId);
+        movieTitleIndex.put(updatedMovie.getTitle(), movieId);
+        Movie indexed = copy(updatedMovie);
+        indexed.setId(movieId);
+        movieSearchIndex.put(indexed);
+        TransactionCallbacks.onRollback(this::resetIndexes);
+        catalogChanged();
     }
 
     public boolean deleteMovie(String title) {
         // Get existing movie
-        Movie movie = movieRepository.findByTitle(title)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", title));
+        Long movieId = movieTitleIndex.lookup(title);
+        if (movieId == null) {
+            throw new ResourceNotFoundException("Movie", title);
+        }
 
         // Check if movie has any associated showtimes
-        Long movieId = movie.getId();
-
         if (showtimeRepository.existsByMovieId(movieId)) {
             throw new BusinessLogicException("Cannot delete movie with existing showtimes. Remove all showtimes for this movie first.");
         }
 
-        movieRepository.delete(movie);
+        if (movieRepository.deleteMovieById(movieId) == 0) {
+            // Deleted elsewhere, so the index is out of date
+            resetIndexes();
+            throw new ResourceNotFoundException("Movie", title);
+        }
+        movieTitleIndex.remove(title, movieId);
+        movieSearchIndex.remove(movieId);
+        TransactionCallbacks.onRollback(this::resetIndexes);
+        catalogChanged();
         return true;
     }
 
+    /**
+     * Maps a write rejected by the unique title index, which means the title index missed a movie
+     * written elsewhere; the index is reloaded.
+     */
+    private RuntimeException titleTaken(DataIntegrityViolationException e, String title) {
+        if (!ConstraintViolations.isUniqueViolation(e)) {
+            return e;
+        }
+        resetIndexes();
+        return new ResourceAlreadyExistsException("Movie", title);
+    }
+
+    private void resetIndexes() {
+        movieTitleIndex.reset();
+        movieSearchIndex.reset();
+    }
+
     private void validateMovie(Movie movie) {
         if (movie == null) {
             throw new InvalidResourceException("Movie cannot be null");
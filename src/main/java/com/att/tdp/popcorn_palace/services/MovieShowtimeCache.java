@@ -0,0 +1,96 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cache of the upcoming showtimes of every movie, behind the movie detail page.
+ * A movie's future showtimes are loaded once, sorted by start time, and kept until a showtime of
+ * that movie changes. Showtimes that have started since are not reloaded: each read skips them
+ * with a binary search and stores the trimmed list back, so the cache shrinks as time advances.
+ */
+@Service
+public class MovieShowtimeCache {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final Cache<Long, Upcoming> upcoming;
+
+    public MovieShowtimeCache(ShowtimeRepository showtimeRepository,
+                              @Value("${showtime.upcoming.cache-size:10000}") long cacheSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.upcoming = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Returns the showtimes of the movie starting after the given time, sorted by start time.
+     */
+    public List<Showtime> get(Long movieId, Instant now) {
+        Upcoming cached = upcoming.getIfPresent(movieId);
+        if (cached == null) {
+            // Loading under the per-key lock makes a concurrent invalidation wait for the load and drop it
+            cached = upcoming.get(movieId, key -> load(key, now));
+        }
+
+        int first = cached.firstAfter(now);
+        if (first == 0) {
+            return cached.showtimes;
+        }
+        Upcoming trimmed = new Upcoming(cached.showtimes.subList(first, cached.showtimes.size()));
+        // Only if nothing replaced or invalidated the entry in the meantime
+        upcoming.asMap().replace(movieId, cached, trimmed);
+        return trimmed.showtimes;
+    }
+
+    /**
+     * Drops the showtimes of a movie whose showtime changed. Call it for both the old and the new
+     * movie of an update. The movie is dropped again when the surrounding transaction completes,
+     * since a reader may have reloaded it in between without seeing the uncommitted change.
+     */
+    public void invalidate(Long movieId) {
+        upcoming.invalidate(movieId);
+        TransactionCallbacks.afterCompletion(() -> upcoming.invalidate(movieId));
+    }
+
+    private Upcoming load(Long movieId, Instant now) {
+        return new Upcoming(showtimeRepository.findFutureShowtimesByMovieId(movieId, now).stream()
+                // Detached copies, so that later changes to managed entities cannot leak into the cache
+                .map(TheaterDayScheduleCache::copy)
+                .toList());
+    }
+
+    /**
+     * An immutable list of showtimes sorted by start time. Entries are compared by identity, so a
+     * trimmed list only replaces the exact one it was made from.
+     */
+    private static final class Upcoming {
+        private final List<Showtime> showtimes;
+
+        Upcoming(List<Showtime> showtimes) {
+            this.showtimes = List.copyOf(showtimes);
+        }
+
+        // Index of the first showtime starting after the given time
+        int firstAfter(Instant now) {
+            int low = 0;
+            int high = showtimes.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (showtimes.get(middle).getStartTime().isAfter(now)) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
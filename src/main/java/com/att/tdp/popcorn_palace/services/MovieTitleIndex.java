@@ -0,0 +1,71 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieTitle;
+import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory map from normalized movie titles to movie IDs, so that title lookups and uniqueness
+ * checks do not need a query. It is loaded with one query on first use and then kept in sync by
+ * {@link MovieService}. Writes made elsewhere, e.g. by another instance, are still caught by the
+ * unique index on the normalized title, after which the map is reloaded.
+ */
+@Service
+public class MovieTitleIndex {
+
+    private final MovieRepository movieRepository;
+    private volatile ConcurrentHashMap<String, Long> ids;
+
+    public MovieTitleIndex(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Returns the ID of the movie whose title matches the given one after normalization, or null.
+     */
+    public Long lookup(String title) {
+        return ids().get(Movie.normalizeTitle(title));
+    }
+
+    /**
+     * Records a saved movie's title.
+     */
+    public void put(String title, Long id) {
+        ids().put(Movie.normalizeTitle(title), id);
+    }
+
+    /**
+     * Forgets a title, if it still belongs to the given movie.
+     */
+    public void remove(String title, Long id) {
+        ids().remove(Movie.normalizeTitle(title), id);
+    }
+
+    /**
+     * Drops the whole map so it is reloaded from the database on next use, e.g. after a rollback.
+     */
+    public synchronized void reset() {
+        ids = null;
+    }
+
+    private ConcurrentHashMap<String, Long> ids() {
+        ConcurrentHashMap<String, Long> current = ids;
+        if (current != null) {
+            return current;
+        }
+        // Writers wait here for the load too, so none of their changes is lost to it
+        synchronized (this) {
+            if (ids == null) {
+                ConcurrentHashMap<String, Long> loaded = new ConcurrentHashMap<>();
+                for (MovieTitle title : movieRepository.findAllTitles()) {
+                    loaded.put(title.getNormalizedTitle(), title.getId());
+                }
+                ids = loaded;
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the seat state of every active showtime in memory.
+ * A showtime's bitmap is loaded from the bookings table the first time it is touched, after which
+ * seat conflicts are decided with a compare-and-set and never reach the database.
+ */
+@Service
+public class SeatAllocator {
+
+    private final BookingRepository bookingRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ConcurrentHashMap<Long, SeatBitmap> seatMaps = new ConcurrentHashMap<>();
+    // Showtimes whose seat maps may miss seats booked elsewhere
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+
+    public SeatAllocator(BookingRepository bookingRepository, ShowtimeRepository showtimeRepository) {
+        this.bookingRepository = bookingRepository;
+        this.showtimeRepository = showtimeRepository;
+    }
+
+    /**
+     * Claims a seat for a showtime.
+     *
+     * @return true if the seat was free, false if it is already taken
+     * @throws ResourceNotFoundException if the showtime does not exist
+     */
+    public boolean tryClaim(Long showtimeId, int seatNumber) {
+        return seatMap(showtimeId).tryClaim(seatNumber);
+    }
+
+    /**
+     * Tells whether a seat is currently taken, without claiming it.
+     *
+     * @throws ResourceNotFoundException if the showtime does not exist
+     */
+    public boolean isTaken(Long showtimeId, int seatNumber) {
+        return seatMap(showtimeId).isTaken(seatNumber);
+    }
+
+    /**
+     * Returns the taken seats of a showtime, booked or held, as ascending [first, last] ranges.
+     *
+     * @throws ResourceNotFoundException if the showtime does not exist
+     */
+    public List<int[]> occupiedRanges(Long showtimeId) {
+        return seatMap(showtimeId).occupiedRanges();
+    }
+
+    /**
+     * Frees a seat that was claimed but could not be persisted.
+     */
+    public void release(Long showtimeId, int seatNumber) {
+        SeatBitmap seatMap = seatMaps.get(showtimeId);
+        if (seatMap != null) {
+            seatMap.release(seatNumber);
+        }
+    }
+
+    /**
+     * Marks a showtime's seat map as missing seats booked elsewhere, e.g. after the database
+     * rejected a seat the map thought was free. On next use the booked seats are read again and
+     * claimed in the existing map, so claims that exist only in memory, such as seat holds, stay.
+     * The read is deferred because the caller's transaction has usually just failed.
+     */
+    public void resync(Long showtimeId) {
+        stale.add(showtimeId);
+    }
+
+    /**
+     * Drops the cached seat state of a showtime, e.g. after it was deleted.
+     */
+    public void evict(Long showtimeId) {
+        seatMaps.remove(showtimeId);
+    }
+
+    private SeatBitmap seatMap(Long showtimeId) {
+        SeatBitmap seatMap = seatMaps.get(showtimeId);
+        if (seatMap != null) {
+            if (!stale.isEmpty() && stale.remove(showtimeId)) {
+                claimBooked(showtimeId, seatMap);
+            }
+            return seatMap;
+        }
+
+        // Load outside the map so a slow query never blocks other showtimes; if two threads race
+        // on a cold showtime only the first bitmap is published and used for claims.
+        SeatBitmap loaded = load(showtimeId);
+        SeatBitmap existing = seatMaps.putIfAbsent(showtimeId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private SeatBitmap load(Long showtimeId) {
+        if (!showtimeRepository.existsById(showtimeId)) {
+            throw new ResourceNotFoundException("Showtime", showtimeId);
+        }
+
+        SeatBitmap seatMap = new SeatBitmap();
+        claimBooked(showtimeId, seatMap);
+        return seatMap;
+    }
+
+    // Seats already claimed in the map stay claimed, so this only ever adds booked seats
+    private void claimBooked(Long showtimeId, SeatBitmap seatMap) {
+        try {
+            for (Integer seatNumber : bookingRepository.findSeatNumbersByShowtimeId(showtimeId)) {
+                seatMap.tryClaim(seatNumber);
+            }
+        } catch (RuntimeException e) {
+            if (seatMaps.get(showtimeId) == seatMap) {
+                stale.add(showtimeId);
+            }
+            throw e;
+        }
+    }
+}
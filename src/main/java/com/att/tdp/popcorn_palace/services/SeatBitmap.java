@@ -0,0 +1,102 @@
+package com.att.tdp.popcorn_palace.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Occupancy bitmap for the seats of a single showtime.
+ * Seats are grouped into pages of 4096 bits that are created on first use, so a typical
+ * hall fits in a single 512 byte page. Claims and releases are lock-free compare-and-set
+ * operations on the page words.
+ */
+public final class SeatBitmap {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int WORDS_PER_PAGE = 1 << (PAGE_SHIFT - 6);
+
+    private final ConcurrentHashMap<Integer, AtomicLongArray> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Atomically marks a seat as taken.
+     *
+     * @param seatNumber the seat to claim
+     * @return true if the seat was free and is now claimed by the caller, false if it was already taken
+     */
+    public boolean tryClaim(int seatNumber) {
+        AtomicLongArray page = pages.computeIfAbsent(seatNumber >>> PAGE_SHIFT, index -> new AtomicLongArray(WORDS_PER_PAGE));
+        int word = (seatNumber & PAGE_MASK) >>> 6;
+        long mask = 1L << seatNumber;
+
+        while (true) {
+            long current = page.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (page.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marks a previously claimed seat as free again.
+     *
+     * @param seatNumber the seat to release
+     */
+    public void release(int seatNumber) {
+        AtomicLongArray page = pages.get(seatNumber >>> PAGE_SHIFT);
+        if (page == null) {
+            return;
+        }
+        int word = (seatNumber & PAGE_MASK) >>> 6;
+        long mask = 1L << seatNumber;
+        page.getAndUpdate(word, current -> current & ~mask);
+    }
+
+    public boolean isTaken(int seatNumber) {
+        AtomicLongArray page = pages.get(seatNumber >>> PAGE_SHIFT);
+        if (page == null) {
+            return false;
+        }
+        return (page.get((seatNumber & PAGE_MASK) >>> 6) & (1L << seatNumber)) != 0;
+    }
+
+    /**
+     * Run-length encodes the taken seats in ascending order.
+     *
+     * @return inclusive [first, last] seat ranges of consecutive taken seats
+     */
+    public List<int[]> occupiedRanges() {
+        List<Integer> pageIndexes = new ArrayList<>(pages.keySet());
+        pageIndexes.sort(null);
+
+        List<int[]> ranges = new ArrayList<>();
+        int first = -1;
+        int last = -2;
+        for (int pageIndex : pageIndexes) {
+            AtomicLongArray page = pages.get(pageIndex);
+            int pageBase = pageIndex << PAGE_SHIFT;
+            for (int word = 0; word < WORDS_PER_PAGE; word++) {
+                long bits = page.get(word);
+                while (bits != 0) {
+                    int seatNumber = pageBase + (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (seatNumber != last + 1) {
+                        if (first >= 0) {
+                            ranges.add(new int[]{first, last});
+                        }
+                        first = seatNumber;
+                    }
+                    last = seatNumber;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        if (first >= 0) {
+            ranges.add(new int[]{first, last});
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,124 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.OperationNotAllowedException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks time-limited seat holds.
+ * Held seats stay claimed in the {@link SeatAllocator} so other users are rejected in memory; when a
+ * hold is neither confirmed nor released within its TTL the timing wheel frees its seats again.
+ */
+@Service
+public class SeatHoldRegistry {
+
+    private final SeatAllocator seatAllocator;
+    private final Duration ttl;
+    private final HashedWheelTimer timer;
+    private final ConcurrentHashMap<UUID, SeatHold> holds = new ConcurrentHashMap<>();
+
+    public SeatHoldRegistry(SeatAllocator seatAllocator,
+                            @Value("${booking.hold.ttl:PT10M}") Duration ttl,
+                            @Value("${booking.hold.tick:PT1S}") Duration tick,
+                            @Value("${booking.hold.wheel-size:512}") int wheelSize) {
+        this.seatAllocator = seatAllocator;
+        this.ttl = ttl;
+        this.timer = new HashedWheelTimer("seat-hold-expiry", tick, wheelSize);
+    }
+
+    /**
+     * Registers a hold on seats the caller has already claimed.
+     *
+     * @return the new hold, which expires after the configured TTL
+     */
+    public SeatHold hold(Long showtimeId, UUID userId, List<Integer> seatNumbers) {
+        SeatHold hold = new SeatHold(UUID.randomUUID(), showtimeId, userId, List.copyOf(seatNumbers), Instant.now().plus(ttl));
+        holds.put(hold.holdId(), hold);
+        hold.timeout = timer.schedule(() -> expire(hold.holdId()), ttl);
+        return hold;
+    }
+
+    /**
+     * Removes a live hold so its seats can be booked or released by the user who took it.
+     *
+     * @throws ResourceNotFoundException if the hold does not exist or has already expired
+     * @throws OperationNotAllowedException if the hold belongs to another user
+     */
+    public SeatHold take(UUID holdId, UUID userId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold != null && !hold.userId().equals(userId)) {
+            throw new OperationNotAllowedException(String.format("Seat hold %s belongs to another user", holdId));
+        }
+        // Expiry or a concurrent take may have removed it since
+        if (hold == null || !holds.remove(holdId, hold)) {
+            throw new ResourceNotFoundException("Seat hold", holdId.toString());
+        }
+        // The timeout may not be attached yet; its task then finds the hold gone and does nothing
+        HashedWheelTimer.Timeout timeout = hold.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return hold;
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    private void expire(UUID holdId) {
+        SeatHold hold = holds.remove(holdId);
+        if (hold != null) {
+            hold.seatNumbers().forEach(seatNumber -> seatAllocator.release(hold.showtimeId(), seatNumber));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+    }
+
+    public static final class SeatHold {
+        private final UUID holdId;
+        private final Long showtimeId;
+        private final UUID userId;
+        private final List<Integer> seatNumbers;
+        private final Instant expiresAt;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private SeatHold(UUID holdId, Long showtimeId, UUID userId, List<Integer> seatNumbers, Instant expiresAt) {
+            this.holdId = holdId;
+            this.showtimeId = showtimeId;
+            this.userId = userId;
+            this.seatNumbers = seatNumbers;
+            this.expiresAt = expiresAt;
+        }
+
+        public UUID holdId() {
+            return holdId;
+        }
+
+        public Long showtimeId() {
+            return showtimeId;
+        }
+
+        public UUID userId() {
+            return userId;
+        }
+
+        public List<Integer> seatNumbers() {
+            return seatNumbers;
+        }
+
+        public Instant expiresAt() {
+            return expiresAt;
+        }
+    }
+}
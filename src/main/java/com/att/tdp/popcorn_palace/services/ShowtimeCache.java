@@ -0,0 +1,67 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Read-through cache of single showtimes, which are read far more often than they change.
+ * Entries are bounded by {@code showtime.cache.max-size} and expire {@code showtime.cache.ttl}
+ * after loading, which also bounds how long a change made by another instance can go unseen.
+ * Concurrent misses on one showtime wait for a single load. Hits, misses and evictions are
+ * published as the {@code cache.*} metrics tagged {@code cache=showtimes}.
+ */
+@Service
+public class ShowtimeCache {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final Cache<Long, Showtime> showtimes;
+
+    public ShowtimeCache(ShowtimeRepository showtimeRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${showtime.cache.max-size:10000}") long maxSize,
+                         @Value("${showtime.cache.ttl:PT10M}") Duration ttl) {
+        this.showtimeRepository = showtimeRepository;
+        this.showtimes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, showtimes, "showtimes");
+    }
+
+    /**
+     * Returns the showtime with the given ID, or null if there is none. Missing showtimes are not
+     * cached, so one created later is found at once. The returned showtime is shared with other
+     * readers and must not be modified.
+     */
+    public Showtime get(Long id) {
+        // Runs the load under the per-key lock, so concurrent misses share it and a concurrent
+        // invalidation waits for the load and then drops it
+        return showtimes.get(id, this::load);
+    }
+
+    /**
+     * Drops a changed or deleted showtime. It is dropped again when the surrounding transaction
+     * completes, since a reader may have reloaded it in between without seeing the uncommitted
+     * change, and a rolled back change must not stay cached either.
+     */
+    public void invalidate(Long id) {
+        showtimes.invalidate(id);
+        TransactionCallbacks.afterCompletion(() -> showtimes.invalidate(id));
+    }
+
+    private Showtime load(Long id) {
+        // A detached copy, so that later changes to the managed entity cannot leak into the cache
+        return showtimeRepository.findById(id)
+                .map(TheaterDayScheduleCache::copy)
+                .orElse(null);
+    }
+}
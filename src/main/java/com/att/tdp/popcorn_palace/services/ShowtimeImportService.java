@@ -0,0 +1,468 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.exceptions.BaseException;
+import com.att.tdp.popcorn_palace.exceptions.BusinessLogicException;
+import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.RecurringShowtimeRequest;
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.ShowtimeImportReport;
+import com.att.tdp.popcorn_palace.models.ShowtimeImportResult;
+import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeBatchInserter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Schedules many showtimes at once: whole schedules imported from an NDJSON or CSV upload, and
+ * recurring showtime templates expanded on the server.
+ * Every showtime is validated like a single {@code POST /showtime}, but all movie references are
+ * resolved with one query, and overlaps are found with one sweep per theater over the new
+ * showtimes sorted by start time, merged with the theater's existing schedule. The accepted
+ * showtimes are written as one JDBC batch in one transaction. An upload is read line by line, and
+ * its failing rows are reported and skipped; a template is scheduled in full or not at all.
+ */
+@Service
+public class ShowtimeImportService {
+
+    /**
+     * Supported upload formats.
+     */
+    public enum Format {
+        // One JSON showtime object per line, as accepted by POST /showtime
+        NDJSON,
+        // A header line naming the columns movieId, theater, price, startTime and endTime
+        CSV
+    }
+
+    static final List<String> CSV_COLUMNS = List.of("movieId", "theater", "price", "startTime", "endTime");
+
+    // Keeps IN lists well below the bind parameter limits of the database drivers
+    private static final int MOVIE_LOOKUP_CHUNK = 1000;
+
+    private final MovieRepository movieRepository;
+    private final ShowtimeBatchInserter showtimeBatchInserter;
+    private final TheaterScheduleIndex theaterScheduleIndex;
+    private final TheaterDayScheduleCache theaterDayScheduleCache;
+    private final MovieShowtimeCache movieShowtimeCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ZoneId scheduleZone;
+    private final int maxRows;
+
+    public ShowtimeImportService(MovieRepository movieRepository, ShowtimeBatchInserter showtimeBatchInserter,
+                                 TheaterScheduleIndex theaterScheduleIndex, TheaterDayScheduleCache theaterDayScheduleCache,
+                                 MovieShowtimeCache movieShowtimeCache, TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${showtime.schedule.zone:UTC}") ZoneId scheduleZone,
+                                 @Value("${showtime.import.max-rows:10000}") int maxRows) {
+        this.movieRepository = movieRepository;
+        this.showtimeBatchInserter = showtimeBatchInserter;
+        this.theaterScheduleIndex = theaterScheduleIndex;
+        this.theaterDayScheduleCache = theaterDayScheduleCache;
+        this.movieShowtimeCache = movieShowtimeCache;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.scheduleZone = scheduleZone;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Imports the showtimes in the body and reports the outcome of every row.
+     *
+     * @param body the uploaded file, read as UTF-8
+     * @param format the format of the file
+     * @throws InvalidResourceException if the file has no valid CSV header or too many rows
+     * @throws BusinessLogicException if showtimes scheduled concurrently overlap the import; nothing is imported then
+     */
+    public ShowtimeImportReport importShowtimes(InputStream body, Format format) throws IOException {
+        List<Row> rows = parse(body, format);
+
+        List<Row> candidates = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.reason == null && validate(row)) {
+                candidates.add(row);
+            }
+        }
+        rejectUnknownMovies(candidates);
+
+        List<Row> accepted = new ArrayList<>();
+        for (Map.Entry<String, List<Row>> theater : groupByTheater(candidates).entrySet()) {
+            sweep(theater.getKey(), theater.getValue(), accepted);
+        }
+        insert(accepted);
+
+        List<ShowtimeImportResult> results = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            results.add(row.reason == null
+                    ? ShowtimeImportResult.accepted(row.line, row.showtime.getId())
+                    : ShowtimeImportResult.rejected(row.line, row.reason));
+        }
+        return new ShowtimeImportReport(results);
+    }
+
+    /**
+     * Expands a recurring showtime template and schedules all of its occurrences, or none of them.
+     * The expansion is validated like an import, with one movie lookup and one sweep against the
+     * theater's schedule, and written as one JDBC batch in one transaction.
+     *
+     * @param request the template, already checked for missing fields
+     * @return the created showtimes, in start time order
+     * @throws InvalidResourceException if the zone or an occurrence is invalid, or there are too many occurrences
+     * @throws ResourceNotFoundException if the movie does not exist
+     * @throws BusinessLogicException if an occurrence overlaps an existing showtime or another occurrence
+     */
+    public List<Showtime> scheduleRecurring(RecurringShowtimeRequest request) {
+        List<Row> rows = expand(request);
+        for (Row row : rows) {
+            if (!validate(row)) {
+                throw new InvalidResourceException(
+                        String.format("Occurrence at %s: %s", row.showtime.getStartTime(), row.reason));
+            }
+        }
+        if (!rows.isEmpty() && !movieRepository.existsById(request.getMovieId())) {
+            throw new ResourceNotFoundException("Movie", request.getMovieId());
+        }
+
+        List<Row> accepted = new ArrayList<>();
+        for (Map.Entry<String, List<Row>> theater : groupByTheater(rows).entrySet()) {
+            sweep(theater.getKey(), theater.getValue(), accepted);
+        }
+        List<Row> conflicts = rows.stream().filter(row -> row.reason != null).toList();
+        if (!conflicts.isEmpty()) {
+            throw new BusinessLogicException(describeConflicts(conflicts, rows.size()));
+        }
+        insert(accepted);
+
+        return accepted.stream().map(row -> row.showtime).toList();
+    }
+
+    private List<Row> expand(RecurringShowtimeRequest request) {
+        ZoneId zone;
+        try {
+            zone = request.getZone() == null ? scheduleZone : ZoneId.of(request.getZone());
+        } catch (DateTimeException e) {
+            throw new InvalidResourceException("zone", "is not a valid time zone");
+        }
+        Duration duration = Duration.ofMinutes(request.getDurationMinutes());
+        List<LocalTime> times = request.getTimes().stream().distinct().sorted().toList();
+        Set<DayOfWeek> days = request.getDaysOfWeek() == null || request.getDaysOfWeek().isEmpty()
+                ? EnumSet.allOf(DayOfWeek.class)
+                : EnumSet.copyOf(request.getDaysOfWeek());
+
+        List<Row> rows = new ArrayList<>();
+        for (LocalDate date = request.getStartDate(); !date.isAfter(request.getEndDate()); date = date.plusDays(1)) {
+            if (!days.contains(date.getDayOfWeek())) {
+                continue;
+            }
+            for (LocalTime time : times) {
+                if (rows.size() == maxRows) {
+                    throw new InvalidResourceException(
+                            String.format("A recurring showtime is limited to %d occurrences", maxRows));
+                }
+                // Local times skipped by a daylight saving change move forward by the length of the gap
+                Instant startTime = ZonedDateTime.of(date, time, zone).toInstant();
+                Row row = new Row(rows.size() + 1, "the occurrence at " + startTime);
+                row.showtime = new Showtime(request.getPrice(), request.getMovieId(), request.getTheater(),
+                        startTime, startTime.plus(duration));
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // Lists the first few conflicts, which is usually enough to see what to change in the template
+    private static String describeConflicts(List<Row> conflicts, int occurrences) {
+        StringBuilder message = new StringBuilder(String.format(
+                "%d of %d occurrences cannot be scheduled, so none were.", conflicts.size(), occurrences));
+        conflicts.stream().limit(5).forEach(row ->
+                message.append(String.format(" Occurrence at %s: %s.", row.showtime.getStartTime(), row.reason)));
+        if (conflicts.size() > 5) {
+            message.append(String.format(" And %d more.", conflicts.size() - 5));
+        }
+        return message.toString();
+    }
+
+    private List<Row> parse(InputStream body, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Row> rows = new ArrayList<>();
+        int[] columns = null;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = parseCsvHeader(line);
+                continue;
+            }
+            if (rows.size() == maxRows) {
+                throw new InvalidResourceException(
+                        String.format("Import is limited to %d showtimes per request", maxRows));
+            }
+
+            Row row = new Row(lineNumber, "the showtime on line " + lineNumber);
+            try {
+                row.showtime = format == Format.CSV ? parseCsvRow(line, columns) : parseJsonRow(line);
+            } catch (BaseException e) {
+                row.reason = e.getMessage();
+            }
+            rows.add(row);
+        }
+
+        if (format == Format.CSV && columns == null) {
+            throw new InvalidResourceException("CSV import must start with a header line: " + String.join(",", CSV_COLUMNS));
+        }
+        return rows;
+    }
+
+    private Showtime parseJsonRow(String line) {
+        try {
+            Showtime showtime = objectMapper.readValue(line, Showtime.class);
+            if (showtime == null) {
+                throw new InvalidResourceException("Showtime cannot be null");
+            }
+            showtime.setId(null);
+            return showtime;
+        } catch (JsonProcessingException e) {
+            throw new InvalidResourceException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Maps each expected column to its position in the header
+    private static int[] parseCsvHeader(String line) {
+        List<String> header = splitCsvLine(line);
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (header.get(j).trim().equalsIgnoreCase(CSV_COLUMNS.get(i))) {
+                    columns[i] = j;
+                }
+            }
+            if (columns[i] < 0) {
+                throw new InvalidResourceException("CSV header", "missing column '" + CSV_COLUMNS.get(i) + "'");
+            }
+        }
+        return columns;
+    }
+
+    private static Showtime parseCsvRow(String line, int[] columns) {
+        List<String> fields = splitCsvLine(line);
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String value = columns[i] < fields.size() ? fields.get(columns[i]).trim() : "";
+            values[i] = value.isEmpty() ? null : value;
+        }
+
+        Showtime showtime = new Showtime();
+        showtime.setMovieId(parseField(CSV_COLUMNS.get(0), values[0], Long::valueOf));
+        showtime.setTheater(values[1]);
+        showtime.setPrice(parseField(CSV_COLUMNS.get(2), values[2], Double::valueOf));
+        showtime.setStartTime(parseField(CSV_COLUMNS.get(3), values[3], Instant::parse));
+        showtime.setEndTime(parseField(CSV_COLUMNS.get(4), values[4], Instant::parse));
+        return showtime;
+    }
+
+    private static <T> T parseField(String field, String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidResourceException(field, "cannot parse '" + value + "'");
+        }
+    }
+
+    /**
+     * Splits a CSV line on commas. Fields may be quoted to contain commas, with doubled quotes
+     * standing for a quote; quoted fields cannot span lines.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private boolean validate(Row row) {
+        try {
+            ShowtimeService.validateRequiredFields(row.showtime);
+            ShowtimeService.validateTimes(row.showtime);
+            row.start = TheaterScheduleIndex.toMicros(row.showtime.getStartTime());
+            row.end = TheaterScheduleIndex.toMicros(row.showtime.getEndTime());
+            return true;
+        } catch (BaseException e) {
+            row.reason = e.getMessage();
+            return false;
+        }
+    }
+
+    private void rejectUnknownMovies(List<Row> candidates) {
+        List<Long> movieIds = new ArrayList<>(new LinkedHashSet<>(candidates.stream().map(row -> row.showtime.getMovieId()).toList()));
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < movieIds.size(); from += MOVIE_LOOKUP_CHUNK) {
+            existing.addAll(movieRepository.findExistingIds(
+                    movieIds.subList(from, Math.min(from + MOVIE_LOOKUP_CHUNK, movieIds.size()))));
+        }
+
+        candidates.removeIf(row -> {
+            Long movieId = row.showtime.getMovieId();
+            if (existing.contains(movieId)) {
+                return false;
+            }
+            row.reason = new ResourceNotFoundException("Movie", movieId).getMessage();
+            return true;
+        });
+    }
+
+    private static Map<String, List<Row>> groupByTheater(List<Row> candidates) {
+        Map<String, List<Row>> theaters = new TreeMap<>();
+        for (Row row : candidates) {
+            theaters.computeIfAbsent(row.showtime.getTheater(), key -> new ArrayList<>()).add(row);
+        }
+        Comparator<Row> byStart = Comparator.comparingLong((Row row) -> row.start).thenComparingInt(row -> row.line);
+        theaters.values().forEach(rows -> rows.sort(byStart));
+        return theaters;
+    }
+
+    /**
+     * Accepts the rows of one theater, sorted by start time, that touch neither an existing
+     * showtime nor a row accepted before them; both ends of a slot are inclusive, as for single
+     * showtimes. One pass suffices: everything that starts before a row is summarized by the latest
+     * end seen so far, and of what starts later only the next existing showtime can reach the row.
+     */
+    private void sweep(String theater, List<Row> rows, List<Row> accepted) {
+        TheaterScheduleIndex.TheaterSchedule schedule = theaterScheduleIndex.schedule(theater);
+        int next = 0;
+        long reachEnd = Long.MIN_VALUE;
+        // The accepted row that reaches furthest, or null if an existing showtime does
+        Row reachRow = null;
+
+        for (Row row : rows) {
+            while (next < schedule.size() && schedule.startAt(next) <= row.start) {
+                if (schedule.endAt(next) > reachEnd) {
+                    reachEnd = schedule.endAt(next);
+                    reachRow = null;
+                }
+                next++;
+            }
+
+            if (reachEnd >= row.start) {
+                row.reason = overlapReason(theater, reachRow);
+            } else if (next < schedule.size() && schedule.startAt(next) <= row.end) {
+                row.reason = overlapReason(theater, null);
+            } else {
+                reachEnd = row.end;
+                reachRow = row;
+                accepted.add(row);
+            }
+        }
+    }
+
+    private static String overlapReason(String theater, Row other) {
+        return other == null
+                ? String.format("Showtime overlaps with existing showtime in theater '%s'", theater)
+                : String.format("Showtime overlaps with %s in theater '%s'", other.label, theater);
+    }
+
+    private void insert(List<Row> accepted) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Showtime> showtimes = accepted.stream().map(row -> row.showtime).toList();
+        Set<String> theaters = new HashSet<>(showtimes.stream().map(Showtime::getTheater).toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                showtimeBatchInserter.insertAll(showtimes);
+                for (Showtime showtime : showtimes) {
+                    theaterScheduleIndex.add(showtime.getTheater(), showtime.getId(), showtime.getStartTime(), showtime.getEndTime());
+                    theaterDayScheduleCache.invalidate(showtime.getTheater(), showtime.getStartTime());
+                }
+                showtimes.stream().map(Showtime::getMovieId).distinct().forEach(movieShowtimeCache::invalidate);
+                TransactionCallbacks.onRollback(() -> theaters.forEach(theaterScheduleIndex::evict));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isShowtimeOverlapViolation(e)) {
+                // Another writer got in between the sweep and the insert, so reload the theaters
+                theaters.forEach(theaterScheduleIndex::evict);
+                throw new BusinessLogicException(
+                        "Imported showtimes overlap with showtimes scheduled in the meantime. Nothing was imported; retry the import.");
+            }
+            throw e;
+        }
+    }
+
+    private static final class Row {
+        private final int line;
+        // How overlap reasons of other rows refer to this one
+        private final String label;
+        private Showtime showtime;
+        private String reason;
+        private long start;
+        private long end;
+
+        private Row(int line, String label) {
+            this.line = line;
+            this.label = label;
+        }
+    }
+}
@@ -3,31 +3,92 @@ package com.att.tdp.popcorn_palace.services;
 import com.att.tdp.popcorn_palace.exceptions.BusinessLogicException;
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.SeatAvailability;
 import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.ShowtimePage;
+import com.att.tdp.popcorn_palace.models.TheaterDaySchedule;
+import com.att.tdp.popcorn_palace.models.TimeSlot;
 import com.att.tdp.popcorn_palace.repositories.MovieRepository;
 import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeSpecifications;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 @Service
 public class ShowtimeService {
 
+    // Search order; the ID breaks ties so that every showtime has a unique position
+    private static final Sort SEARCH_ORDER = Sort.by("startTime", "id");
+
     private final ShowtimeRepository showtimeRepository;
     private final MovieRepository movieRepository;
+    private final SeatAllocator seatAllocator;
+    private final TheaterScheduleIndex theaterScheduleIndex;
+    private final TheaterDayScheduleCache theaterDayScheduleCache;
+    private final TheaterDictionary theaterDictionary;
+    private final MovieShowtimeCache movieShowtimeCache;
+    private final ShowtimeCache showtimeCache;
 
-    public ShowtimeService(ShowtimeRepository showtimeRepository, MovieRepository movieRepository) {
+    public ShowtimeService(ShowtimeRepository showtimeRepository, MovieRepository movieRepository,
+                           SeatAllocator seatAllocator, TheaterScheduleIndex theaterScheduleIndex,
+                           TheaterDayScheduleCache theaterDayScheduleCache, TheaterDictionary theaterDictionary,
+                           MovieShowtimeCache movieShowtimeCache, ShowtimeCache showtimeCache) {
         this.showtimeRepository = showtimeRepository;
         this.movieRepository = movieRepository;
+        this.seatAllocator = seatAllocator;
+        this.theaterScheduleIndex = theaterScheduleIndex;
+        this.theaterDayScheduleCache = theaterDayScheduleCache;
+        this.theaterDictionary = theaterDictionary;
+        this.movieShowtimeCache = movieShowtimeCache;
+        this.showtimeCache = showtimeCache;
     }
 
     public Showtime addShowtime(Showtime showtime) {
         validateShowtime(showtime, null);
-        return showtimeRepository.save(showtime);
+        Showtime savedShowtime = saveShowtime(showtime);
+
+        String theater = savedShowtime.getTheater();
+        theaterScheduleIndex.add(theater, savedShowtime.getId(), savedShowtime.getStartTime(), savedShowtime.getEndTime());
+        TransactionCallbacks.onRollback(() -> theaterScheduleIndex.evict(theater));
+        theaterDayScheduleCache.invalidate(theater, savedShowtime.getStartTime());
+        movieShowtimeCache.invalidate(savedShowtime.getMovieId());
+        return savedShowtime;
     }
 
     private void validateShowtime(Showtime showtime, Long showtimeId) {
+        validateRequiredFields(showtime);
+
+        // Check if movie exists
+        if (!movieRepository.existsById(showtime.getMovieId())) {
+            throw new ResourceNotFoundException("Movie", showtime.getMovieId());
+        }
+
+        validateTimes(showtime);
+
+        // Check for overlapping showtimes (business rule) against the in-memory theater schedule
+        if (theaterScheduleIndex.overlaps(showtime.getTheater(), showtime.getStartTime(), showtime.getEndTime(), showtimeId)) {
+            throw showtimeOverlaps(showtime.getTheater());
+        }
+    }
+
+    /**
+     * Checks the fields every showtime needs, without touching the database.
+     *
+     * @throws InvalidResourceException if a field is missing or invalid
+     */
+    static void validateRequiredFields(Showtime showtime) {
         // Basic validation
         if (showtime == null) {
             throw new InvalidResourceException("Showtime cannot be null");
@@ -52,12 +113,14 @@ public class ShowtimeService {
         if (showtime.getPrice() == null || showtime.getPrice() <= 0) {
             throw new InvalidResourceException("price", "must be positive");
         }
+    }
 
-        // Check if movie exists
-        if (!movieRepository.existsById(showtime.getMovieId())) {
-            throw new ResourceNotFoundException("Movie", showtime.getMovieId());
-        }
-
+    /**
+     * Checks the showtime's time slot on its own, without looking at other showtimes.
+     *
+     * @throws InvalidResourceException if the slot is reversed, in the past, or of unreasonable length
+     */
+    static void validateTimes(Showtime showtime) {
         // Validate time logic
         if (showtime.getStartTime().isAfter(showtime.getEndTime())) {
             throw new InvalidResourceException("startTime", "must be before end time");
@@ -76,35 +139,67 @@ public class ShowtimeService {
         if (durationSeconds > 5 * 60 * 60) { // More than 5 hours
             throw new InvalidResourceException("showtime duration", "must not exceed 5 hours");
         }
+    }
 
-        // Check for overlapping showtimes (business rule)
-        List<Showtime> overlappingShowtimes = showtimeRepository.findOverlappingShowtimes(
-                showtime.getTheater(),
-                showtime.getStartTime(),
-                showtime.getEndTime(),
-                showtimeId);
-
-        if (!overlappingShowtimes.isEmpty()) {
-            throw new BusinessLogicException(
-                    String.format("Showtime overlaps with existing showtime in theater '%s'. Cannot schedule overlapping showtimes.",
-                            showtime.getTheater())
-            );
+    /**
+     * Writes the showtime and flushes it, so that the database's no-overlap constraint decides
+     * races the in-memory check cannot see, e.g. concurrent requests or other instances.
+     *
+     * @throws BusinessLogicException if the showtime overlaps another one in the same theater
+     */
+    private Showtime saveShowtime(Showtime showtime) {
+        // Showtimes reference their theater by ID, so a new theater is created first
+        theaterDictionary.register(showtime.getTheater());
+        try {
+            return showtimeRepository.saveAndFlush(showtime);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isShowtimeOverlapViolation(e)) {
+                // The index missed a showtime, so reload the theater from the database
+                theaterScheduleIndex.evict(showtime.getTheater());
+                throw showtimeOverlaps(showtime.getTheater());
+            }
+            throw e;
         }
     }
 
+    private BusinessLogicException showtimeOverlaps(String theater) {
+        return new BusinessLogicException(
+                String.format("Showtime overlaps with existing showtime in theater '%s'. Cannot schedule overlapping showtimes.",
+                        theater)
+        );
+    }
+
     public void updateShowtime(Showtime updatedShowtime, Long showtimeId) {
         Showtime showtime = showtimeRepository.findById(showtimeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Showtime", showtimeId));
 
         validateShowtime(updatedShowtime, showtimeId);
 
+        String previousTheater = showtime.getTheater();
+        Instant previousStartTime = showtime.getStartTime();
+        Long previousMovieId = showtime.getMovieId();
         showtime.setTheater(updatedShowtime.getTheater());
         showtime.setStartTime(updatedShowtime.getStartTime());
         showtime.setEndTime(updatedShowtime.getEndTime());
         showtime.setMovieId(updatedShowtime.getMovieId());
         showtime.setPrice(updatedShowtime.getPrice());
 
-        showtimeRepository.save(showtime);
+        saveShowtime(showtime);
+
+        String theater = showtime.getTheater();
+        if (!theater.equals(previousTheater)) {
+            theaterScheduleIndex.remove(previousTheater, showtimeId);
+        }
+        theaterScheduleIndex.add(theater, showtimeId, showtime.getStartTime(), showtime.getEndTime());
+        TransactionCallbacks.onRollback(() -> {
+            theaterScheduleIndex.evict(previousTheater);
+            theaterScheduleIndex.evict(theater);
+        });
+        theaterDayScheduleCache.invalidate(previousTheater, previousStartTime);
+        theaterDayScheduleCache.invalidate(theater, showtime.getStartTime());
+        movieShowtimeCache.invalidate(previousMovieId);
+        movieShowtimeCache.invalidate(showtime.getMovieId());
+        showtimeCache.invalidate(showtimeId);
     }
 
     public void deleteShowtime(Long id) {
@@ -119,10 +214,120 @@ public class ShowtimeService {
         }
 
         showtimeRepository.delete(showtime);
+        seatAllocator.evict(id);
+
+        String theater = showtime.getTheater();
+        theaterScheduleIndex.remove(theater, id);
+        TransactionCallbacks.onRollback(() -> theaterScheduleIndex.evict(theater));
+        theaterDayScheduleCache.invalidate(theater, showtime.getStartTime());
+        movieShowtimeCache.invalidate(showtime.getMovieId());
+        showtimeCache.invalidate(id);
     }
 
+    /**
+     * Returns a showtime from the read-through showtime cache. The result is shared and must not
+     * be modified.
+     */
     public Showtime getShowtime(Long id) {
-        return showtimeRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Showtime", id));
+        Showtime showtime = showtimeCache.get(id);
+        if (showtime == null) {
+            throw new ResourceNotFoundException("Showtime", id);
+        }
+        return showtime;
+    }
+
+    /**
+     * Returns the showtimes of a theater starting on the given day, from the day schedule cache.
+     */
+    public TheaterDaySchedule getTheaterDaySchedule(String theater, LocalDate date) {
+        return theaterDayScheduleCache.get(theater, date);
+    }
+
+    /**
+     * Lists the free stretches of a theater's schedule within [from, to] that can hold a showtime
+     * of the given length, read from the in-memory schedule index. Only the future is considered,
+     * since showtimes cannot be scheduled in the past.
+     */
+    public List<TimeSlot> findFreeSlots(String theater, Instant from, Instant to, Duration duration) {
+        Instant now = Instant.now();
+        Instant start = from.isBefore(now) ? now : from;
+        if (!start.isBefore(to)) {
+            return List.of();
+        }
+        return theaterScheduleIndex.freeSlots(theater, start, to, duration);
+    }
+
+    /**
+     * Returns the seat occupancy of a showtime from the in-memory seat map, which BookingService
+     * keeps current with every booking and hold.
+     */
+    public SeatAvailability getSeatAvailability(Long id) {
+        return new SeatAvailability(id, seatAllocator.occupiedRanges(id));
+    }
+
+    /**
+     * Finds showtimes matching the given filters, ordered by start time and ID, one page at a time.
+     * Pages are fetched by seeking past the last showtime of the previous page rather than by
+     * offset, so every page costs the same index range scan, and showtimes added or removed in
+     * between do not shift later pages.
+     *
+     * @param theater only showtimes in this theater, or null
+     * @param movieId only showtimes of this movie, or null
+     * @param from only showtimes starting at or after this time, or null
+     * @param to only showtimes starting before this time, or null
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param limit the maximum number of showtimes on the page
+     * @throws InvalidResourceException if the cursor was not issued by this search
+     */
+    public ShowtimePage searchShowtimes(String theater, Long movieId, Instant from, Instant to, String cursor, int limit) {
+        List<Specification<Showtime>> filters = new ArrayList<>();
+        if (theater != null) {
+            filters.add(ShowtimeSpecifications.inTheater(theater));
+        }
+        if (movieId != null) {
+            filters.add(ShowtimeSpecifications.forMovie(movieId));
+        }
+        if (from != null) {
+            filters.add(ShowtimeSpecifications.startingFrom(from));
+        }
+        if (to != null) {
+            filters.add(ShowtimeSpecifications.startingBefore(to));
+        }
+
+        if (cursor != null) {
+            Showtime last = decodeCursor(cursor);
+            filters.add(ShowtimeSpecifications.after(last.getStartTime(), last.getId()));
+        }
+
+        // One extra row tells whether there is a next page without a count query
+        List<Showtime> showtimes = showtimeRepository.findBy(Specification.allOf(filters),
+                query -> query.sortBy(SEARCH_ORDER).limit(limit + 1).all());
+        String nextCursor = null;
+        if (showtimes.size() > limit) {
+            showtimes = showtimes.subList(0, limit);
+            nextCursor = encodeCursor(showtimes.get(limit - 1));
+        }
+        return new ShowtimePage(showtimes, nextCursor);
+    }
+
+    // The cursor is the sort key of the last showtime on a page, so clients cannot depend on its shape
+    static String encodeCursor(Showtime last) {
+        String key = last.getStartTime() + "," + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns a showtime holding only the sort key the cursor points past
+    static Showtime decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(',');
+            Instant startTime = Instant.parse(key.substring(0, separator));
+            Showtime last = new Showtime();
+            last.setStartTime(startTime);
+            last.setId(Long.valueOf(key.substring(separator + 1)));
+            return last;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidResourceException("cursor", "is not a valid search cursor");
+        }
     }
-}
\ No newline at end of file
+}
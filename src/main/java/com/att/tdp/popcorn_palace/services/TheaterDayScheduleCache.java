@@ -0,0 +1,103 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.TheaterDaySchedule;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Cache of the day schedules of theaters, the most read view of the system.
+ * Each theater and day is loaded with one index range query the first time it is asked for, and
+ * then served as the same immutable {@link TheaterDaySchedule} without locking until a showtime
+ * of that theater and day changes. Days are calendar days in {@code showtime.schedule.zone}.
+ * Entries are keyed by a single long packing the theater's ID with the day, which is cheaper to
+ * hash and compare than a composite key of name and date. The name is still resolved to its ID
+ * through the {@link TheaterDictionary}, and the key is boxed for the cache, so every lookup
+ * allocates one small {@code Long}.
+ */
+@Service
+public class TheaterDayScheduleCache {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final TheaterDictionary theaterDictionary;
+    private final ZoneId zone;
+    private final Cache<Long, TheaterDaySchedule> schedules;
+
+    public TheaterDayScheduleCache(ShowtimeRepository showtimeRepository,
+                                   TheaterDictionary theaterDictionary,
+                                   @Value("${showtime.schedule.zone:UTC}") ZoneId zone,
+                                   @Value("${showtime.schedule.cache-size:10000}") long cacheSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.theaterDictionary = theaterDictionary;
+        this.zone = zone;
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Returns the showtimes of the theater starting on the given day, sorted by start time.
+     */
+    public TheaterDaySchedule get(String theater, LocalDate date) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId == null) {
+            // Not a theater yet, so nothing is scheduled there
+            return new TheaterDaySchedule(theater, date, List.of());
+        }
+        long key = key(theaterId, date);
+        TheaterDaySchedule schedule = schedules.getIfPresent(key);
+        if (schedule != null) {
+            return schedule;
+        }
+        // Loading under the per-key lock makes a concurrent invalidation wait for the load and drop it
+        return schedules.get(key, this::load);
+    }
+
+    /**
+     * Drops the day of a changed showtime. Call it for both the old and the new slot of an update.
+     * The day is dropped again when the surrounding transaction completes, since a reader may have
+     * reloaded it in between without seeing the uncommitted change.
+     */
+    public void invalidate(String theater, Instant startTime) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId == null) {
+            return;
+        }
+        long key = key(theaterId, LocalDate.ofInstant(startTime, zone));
+        schedules.invalidate(key);
+        TransactionCallbacks.afterCompletion(() -> schedules.invalidate(key));
+    }
+
+    private TheaterDaySchedule load(long key) {
+        String theater = theaterDictionary.nameOf((int) (key >>> 32));
+        LocalDate date = LocalDate.ofEpochDay((int) key);
+        Instant from = date.atStartOfDay(zone).toInstant();
+        Instant to = date.plusDays(1).atStartOfDay(zone).toInstant();
+        List<Showtime> showtimes = showtimeRepository.findScheduleByTheater(theater, from, to).stream()
+                // Detached copies, so that later changes to managed entities cannot leak into the cache
+                .map(TheaterDayScheduleCache::copy)
+                .toList();
+        return new TheaterDaySchedule(theater, date, showtimes);
+    }
+
+    static Showtime copy(Showtime showtime) {
+        Showtime copy = new Showtime(showtime.getPrice(), showtime.getMovieId(), showtime.getTheater(),
+                showtime.getStartTime(), showtime.getEndTime());
+        copy.setId(showtime.getId());
+        return copy;
+    }
+
+    // Theater ID in the high half, epoch day in the low half
+    private static long key(int theaterId, LocalDate date) {
+        return ((long) theaterId << 32) | (Math.toIntExact(date.toEpochDay()) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,288 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.att.tdp.popcorn_palace.models.ShowtimeInterval;
+import com.att.tdp.popcorn_palace.models.TimeSlot;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the time slots taken in every theater, used to reject overlapping showtimes
+ * without a database round trip.
+ * A theater's schedule is loaded with one query the first time it is checked and is then kept in
+ * sync by {@link ShowtimeService}. Each schedule is an immutable snapshot of sorted primitive
+ * arrays that is replaced on every write, so checks never lock. Schedules are keyed by the
+ * theater's integer ID from the {@link TheaterDictionary}; a name that is not yet a theater has
+ * an empty schedule.
+ */
+@Service
+public class TheaterScheduleIndex {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final TheaterDictionary theaterDictionary;
+    private final ConcurrentHashMap<Integer, TheaterSchedule> schedules = new ConcurrentHashMap<>();
+
+    public TheaterScheduleIndex(ShowtimeRepository showtimeRepository, TheaterDictionary theaterDictionary) {
+        this.showtimeRepository = showtimeRepository;
+        this.theaterDictionary = theaterDictionary;
+    }
+
+    /**
+     * Tells whether the slot [startTime, endTime] touches any showtime of the theater other than
+     * the excluded one. Both ends are inclusive, so back-to-back showtimes overlap.
+     *
+     * @param excludedId the showtime being updated, or null
+     */
+    public boolean overlaps(String theater, Instant startTime, Instant endTime, Long excludedId) {
+        return schedule(theater).overlaps(toMicros(startTime), toMicros(endTime), excludedId);
+    }
+
+    /**
+     * Lists the free stretches of a theater's schedule within [from, to] that can hold a showtime
+     * of the given length, in time order. Slots never touch an existing showtime, since
+     * back-to-back showtimes count as overlapping.
+     */
+    public List<TimeSlot> freeSlots(String theater, Instant from, Instant to, Duration duration) {
+        List<TimeSlot> slots = new ArrayList<>();
+        long[] gaps = schedule(theater).gaps(toMicros(from), toMicros(to), toMicros(duration));
+        for (int i = 0; i < gaps.length; i += 2) {
+            slots.add(new TimeSlot(fromMicros(gaps[i]), fromMicros(gaps[i + 1])));
+        }
+        return slots;
+    }
+
+    /**
+     * Records a saved showtime in its theater's schedule, if that schedule is loaded.
+     */
+    public void add(String theater, Long id, Instant startTime, Instant endTime) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId != null) {
+            // Applied under the map's per-key lock, so it cannot be lost to a concurrent first load
+            schedules.computeIfPresent(theaterId, (key, schedule) -> schedule.with(id, toMicros(startTime), toMicros(endTime)));
+        }
+    }
+
+    /**
+     * Removes a showtime from its theater's schedule, if that schedule is loaded.
+     */
+    public void remove(String theater, Long id) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId != null) {
+            schedules.computeIfPresent(theaterId, (key, schedule) -> schedule.without(id));
+        }
+    }
+
+    /**
+     * Drops a theater's schedule so it is reloaded from the database on next use.
+     */
+    public void evict(String theater) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId != null) {
+            schedules.remove(theaterId);
+        }
+    }
+
+    /**
+     * Returns the current schedule snapshot of a theater, loading it on first use.
+     */
+    TheaterSchedule schedule(String theater) {
+        Integer theaterId = theaterDictionary.lookup(theater);
+        if (theaterId == null) {
+            // No showtime can reference a theater that does not exist yet
+            return TheaterSchedule.EMPTY;
+        }
+        TheaterSchedule schedule = schedules.get(theaterId);
+        if (schedule != null) {
+            return schedule;
+        }
+        // Loading under the per-key lock orders the load before any write to the same theater
+        return schedules.computeIfAbsent(theaterId, key -> load(theater));
+    }
+
+    private TheaterSchedule load(String theater) {
+        List<ShowtimeInterval> intervals = showtimeRepository.findIntervalsByTheater(theater);
+        long[][] entries = new long[intervals.size()][];
+        for (int i = 0; i < entries.length; i++) {
+            ShowtimeInterval interval = intervals.get(i);
+            entries[i] = new long[]{toMicros(interval.getStartTime()), toMicros(interval.getEndTime()), interval.getId()};
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[2], b[2]));
+
+        long[] starts = new long[entries.length];
+        long[] ends = new long[entries.length];
+        long[] ids = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            starts[i] = entries[i][0];
+            ends[i] = entries[i][1];
+            ids[i] = entries[i][2];
+        }
+        return new TheaterSchedule(starts, ends, ids);
+    }
+
+    // Microseconds match the precision the database keeps for timestamps
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static long toMicros(Duration duration) {
+        return Math.addExact(Math.multiplyExact(duration.getSeconds(), 1_000_000L), duration.getNano() / 1_000);
+    }
+
+    static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    /**
+     * Showtimes of one theater sorted by start time, with the running maximum of their end times.
+     * The showtimes that can touch a slot are exactly those starting no later than the slot ends;
+     * they form a prefix of the arrays, and the prefix maximum tells in one lookup whether any of
+     * them ends after the slot starts.
+     */
+    static final class TheaterSchedule {
+        static final TheaterSchedule EMPTY = new TheaterSchedule(new long[0], new long[0], new long[0]);
+
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] ids;
+        private final long[] maxEnds;
+
+        TheaterSchedule(long[] starts, long[] ends, long[] ids) {
+            this.starts = starts;
+            this.ends = ends;
+            this.ids = ids;
+            this.maxEnds = new long[ends.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        boolean overlaps(long start, long end, Long excludedId) {
+            int candidates = upperBound(end);
+            if (candidates == 0 || maxEnds[candidates - 1] < start) {
+                return false;
+            }
+            if (excludedId == null) {
+                return true;
+            }
+
+            // Walk back from the latest candidate until no earlier showtime can reach the slot;
+            // in a schedule without overlaps this stops after one or two steps
+            for (int i = candidates - 1; i >= 0 && maxEnds[i] >= start; i--) {
+                if (ends[i] >= start && ids[i] != excludedId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the free stretches within [from, to] of at least the given length, as pairs of
+         * inclusive start and end times. A stretch begins one microsecond after a showtime ends and
+         * stops one microsecond before the next one starts.
+         */
+        long[] gaps(long from, long to, long length) {
+            long[] gaps = new long[8];
+            int count = 0;
+
+            // Showtimes starting before the window only matter through the latest of their ends
+            int first = upperBound(from);
+            long free = first == 0 ? from : Math.max(from, maxEnds[first - 1] + 1);
+            for (int i = first; i < starts.length && starts[i] <= to && free <= to; i++) {
+                long gapEnd = starts[i] - 1;
+                if (gapEnd - free >= length) {
+                    if (count == gaps.length) {
+                        gaps = Arrays.copyOf(gaps, count * 2);
+                    }
+                    gaps[count++] = free;
+                    gaps[count++] = gapEnd;
+                }
+                free = Math.max(free, ends[i] + 1);
+            }
+            if (to - free >= length) {
+                if (count == gaps.length) {
+                    gaps = Arrays.copyOf(gaps, count + 2);
+                }
+                gaps[count++] = free;
+                gaps[count++] = to;
+            }
+            return Arrays.copyOf(gaps, count);
+        }
+
+        TheaterSchedule with(Long id, long start, long end) {
+            TheaterSchedule schedule = indexOf(id) >= 0 ? without(id) : this;
+            int position = schedule.upperBound(start);
+            return new TheaterSchedule(
+                    insert(schedule.starts, position, start),
+                    insert(schedule.ends, position, end),
+                    insert(schedule.ids, position, id));
+        }
+
+        TheaterSchedule without(Long id) {
+            int position = indexOf(id);
+            if (position < 0) {
+                return this;
+            }
+            return new TheaterSchedule(delete(starts, position), delete(ends, position), delete(ids, position));
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        long startAt(int index) {
+            return starts[index];
+        }
+
+        long endAt(int index) {
+            return ends[index];
+        }
+
+        // Number of showtimes starting at or before the given time
+        private int upperBound(long time) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static long[] insert(long[] values, int position, long value) {
+            long[] result = new long[values.length + 1];
+            System.arraycopy(values, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(values, position, result, position + 1, values.length - position);
+            return result;
+        }
+
+        private static long[] delete(long[] values, int position) {
+            long[] result = new long[values.length - 1];
+            System.arraycopy(values, 0, result, 0, position);
+            System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+            return result;
+        }
+    }
+}
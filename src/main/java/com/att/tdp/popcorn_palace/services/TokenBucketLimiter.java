@@ -0,0 +1,153 @@
+package com.att.tdp.popcorn_palace.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for an unbounded key space in bounded memory. Each bucket stores a single long:
+ * the time at which it is full again (the generic cell rate algorithm).
+ * <p>
+ * Buckets live either in a fixed table of slots that keys are hashed onto, or in a map with one
+ * bucket per key, see {@link #perKey}. The slot table is an approximation: keys that share a slot
+ * share a bucket, so a cold key colliding with a hot one is throttled along with it. The map keeps
+ * keys apart and forgets a bucket once it has been idle long enough to be full again; only if it
+ * holds its maximum number of keys does it evict earlier, which can only make a limit more lenient.
+ * <p>
+ * A request that finds the bucket empty may reserve a future token instead of being rejected.
+ * Reservations are handed out in arrival order, so waiting callers form a FIFO queue whose
+ * length is bounded by the maximum wait.
+ */
+public final class TokenBucketLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+    private final LongFunction<AtomicLong> bucket;
+    private final LongFunction<AtomicLong> existingBucket;
+
+    /**
+     * Creates a limiter whose buckets are a fixed table of slots.
+     *
+     * @param ratePerSecond tokens added per second
+     * @param burst bucket capacity
+     * @param maxWaitNanos longest a request may wait for a reserved token
+     * @param slots number of buckets, rounded up to a power of two
+     */
+    public TokenBucketLimiter(double ratePerSecond, int burst, long maxWaitNanos, int slots, LongSupplier clock) {
+        this(ratePerSecond, burst, maxWaitNanos, clock, slotTable(slots));
+    }
+
+    private TokenBucketLimiter(double ratePerSecond, int burst, long maxWaitNanos, LongSupplier clock, AtomicLong[] slots) {
+        this(ratePerSecond, burst, maxWaitNanos, clock, key -> slots[slot(key, slots.length - 1)],
+                key -> slots[slot(key, slots.length - 1)]);
+    }
+
+    private TokenBucketLimiter(double ratePerSecond, int burst, long maxWaitNanos, LongSupplier clock,
+                               LongFunction<AtomicLong> bucket, LongFunction<AtomicLong> existingBucket) {
+        validate(ratePerSecond, burst);
+        this.emissionIntervalNanos = emissionInterval(ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.maxWaitNanos = maxWaitNanos;
+        this.clock = clock;
+        this.bucket = bucket;
+        this.existingBucket = existingBucket;
+    }
+
+    /**
+     * Creates a limiter with a bucket per key, kept until it is full again and idle.
+     *
+     * @param ratePerSecond tokens added per second
+     * @param burst bucket capacity
+     * @param maxWaitNanos longest a request may wait for a reserved token
+     * @param maxKeys most buckets kept at once
+     */
+    public static TokenBucketLimiter perKey(double ratePerSecond, int burst, long maxWaitNanos, long maxKeys,
+                                           LongSupplier clock) {
+        validate(ratePerSecond, burst);
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        // A bucket untouched for this long is full again, so forgetting it changes nothing
+        long idleNanos = emissionInterval(ratePerSecond) * burst + maxWaitNanos;
+        Cache<Long, AtomicLong> buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(idleNanos))
+                .ticker(clock::getAsLong)
+                .build();
+        return new TokenBucketLimiter(ratePerSecond, burst, maxWaitNanos, clock,
+                key -> buckets.get(key, ignored -> emptyBucket()), buckets::getIfPresent);
+    }
+
+    /**
+     * Takes a token for the key, reserving a future one if the bucket is empty.
+     *
+     * @return 0 if a token was taken, the nanoseconds the caller must wait before using its
+     * reserved token, or a negative number whose absolute value is the time until a token could be
+     * reserved again if the wait would exceed the maximum
+     */
+    public long acquire(long key) {
+        AtomicLong fullAt = bucket.apply(key);
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long theoretical = Math.max(current, now);
+            long allowedAt = theoretical - burstToleranceNanos;
+            long wait = allowedAt - now;
+
+            if (wait > maxWaitNanos) {
+                return -(wait - maxWaitNanos);
+            }
+            if (fullAt.compareAndSet(current, theoretical + emissionIntervalNanos)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #acquire}, e.g. when another limit rejected the request.
+     */
+    public void release(long key) {
+        // A bucket forgotten in the meantime starts full, so there is nothing to give back
+        AtomicLong fullAt = existingBucket.apply(key);
+        if (fullAt != null) {
+            fullAt.getAndAdd(-emissionIntervalNanos);
+        }
+    }
+
+    private static void validate(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+    }
+
+    private static long emissionInterval(double ratePerSecond) {
+        return (long) (1_000_000_000L / ratePerSecond);
+    }
+
+    private static AtomicLong[] slotTable(int slots) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        AtomicLong[] table = new AtomicLong[Integer.highestOneBit(Math.max(1, slots - 1)) << 1];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = emptyBucket();
+        }
+        return table;
+    }
+
+    private static AtomicLong emptyBucket() {
+        // Clock readings may be negative, so untouched buckets start far in the past
+        return new AtomicLong(Long.MIN_VALUE / 2);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
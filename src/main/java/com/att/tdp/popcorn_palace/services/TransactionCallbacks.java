@@ -0,0 +1,55 @@
+package com.att.tdp.popcorn_palace.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for keeping in-memory state in line with the surrounding database transaction.
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the given compensation if the current transaction does not commit.
+     * Does nothing when called outside a transaction, since the write has already been committed.
+     *
+     * @param compensation the action that undoes an in-memory change
+     */
+    static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the given action once the current transaction has completed, whether it committed or
+     * not, or right away when called outside a transaction.
+     *
+     * @param action the action to run, e.g. dropping a cache entry that may have been loaded
+     *               while the transaction's changes were not yet visible
+     */
+    static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,18 +1,23 @@
-INSERT INTO movies (title, genre, duration, rating, release_year) VALUES
-('The Shawshank Redemption', 'Drama', 142, 9.3, 1994),
-('The Godfather', 'Crime', 175, 9.2, 1972),
-('The Dark Knight', 'Action', 152, 9.0, 2008),
-('The Lord of the Rings: The Return of the King', 'Adventure', 201, 8.9, 2003),
-('Pulp Fiction', 'Crime', 154, 8.9, 1994);
+INSERT INTO movies (title, normalized_title, genre, duration, rating, release_year) VALUES
+('The Shawshank Redemption', 'the shawshank redemption', 'Drama', 142, 9.3, 1994),
+('The Godfather', 'the godfather', 'Crime', 175, 9.2, 1972),
+('The Dark Knight', 'the dark knight', 'Action', 152, 9.0, 2008),
+('The Lord of the Rings: The Return of the King', 'the lord of the rings: the return of the king', 'Adventure', 201, 8.9, 2003),
+('Pulp Fiction', 'pulp fiction', 'Crime', 154, 8.9, 1994);
 
-INSERT INTO showtimes (movie_id, theater, price, start_time, end_time) VALUES
-(1, 'Theater 1', 12.99, '2025-06-15 14:00:00+00', '2025-06-15 16:30:00+00'),
-(1, 'Theater 2', 14.99, '2025-06-15 18:00:00+00', '2025-06-15 20:30:00+00'),
-(2, 'Theater 1', 12.99, '2025-06-15 20:00:00+00', '2025-06-15 23:00:00+00'),
-(3, 'Theater 3', 15.99, '2025-06-16 15:00:00+00', '2025-06-16 17:30:00+00'),
-(3, 'Theater 3', 15.99, '2025-06-16 18:00:00+00', '2025-06-16 20:30:00+00'),
-(4, 'Theater 2', 14.99, '2025-06-16 17:00:00+00', '2025-06-16 20:30:00+00'),
-(5, 'Theater 1', 12.99, '2025-06-17 19:00:00+00', '2025-06-17 21:30:00+00');
+INSERT INTO theaters (name) VALUES
+('Theater 1'),
+('Theater 2'),
+('Theater 3');
+
+INSERT INTO showtimes (movie_id, theater_id, price, start_time, end_time) VALUES
+(1, 1, 12.99, '2025-06-15 14:00:00+00', '2025-06-15 16:30:00+00'),
+(1, 2, 14.99, '2025-06-15 18:00:00+00', '2025-06-15 20:30:00+00'),
+(2, 1, 12.99, '2025-06-15 20:00:00+00', '2025-06-15 23:00:00+00'),
+(3, 3, 15.99, '2025-06-16 15:00:00+00', '2025-06-16 17:30:00+00'),
+(3, 3, 15.99, '2025-06-16 18:00:00+00', '2025-06-16 20:30:00+00'),
+(4, 2, 14.99, '2025-06-16 17:00:00+00', '2025-06-16 20:30:00+00'),
+(5, 1, 12.99, '2025-06-17 19:00:00+00', '2025-06-17 21:30:00+00');
 
 INSERT INTO bookings (booking_id, showtime_id, seat_number, user_id) VALUES
 ('f47ac10b-58cc-4372-a567-0e02b2c3d479', 1, 5, '550e8400-e29b-41d4-a716-446655440000'),
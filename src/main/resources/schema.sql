@@ -1,23 +1,33 @@
 -- Drop tables if they exist
+DROP TABLE IF EXISTS idempotency_keys;
 DROP TABLE IF EXISTS bookings;
 DROP TABLE IF EXISTS showtimes;
+DROP TABLE IF EXISTS theaters;
 DROP TABLE IF EXISTS movies;
 
 -- Create movies table
 CREATE TABLE IF NOT EXISTS movies (
     id SERIAL PRIMARY KEY,
     title VARCHAR(255) NOT NULL UNIQUE,
+    -- Lower-cased, trimmed title with single spaces; its unique index is declared on the Movie entity
+    normalized_title VARCHAR(255) NOT NULL,
     genre VARCHAR(100) NOT NULL,
     duration INTEGER NOT NULL,
     rating DECIMAL(3,1) NOT NULL,
     release_year INTEGER NOT NULL
 );
 
+-- Create theaters table
+CREATE TABLE IF NOT EXISTS theaters (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+
 -- Create showtimes table
 CREATE TABLE IF NOT EXISTS showtimes (
     id SERIAL PRIMARY KEY,
     movie_id BIGINT NOT NULL REFERENCES movies(id),
-    theater VARCHAR(100) NOT NULL,
+    theater_id INTEGER NOT NULL REFERENCES theaters(id),
     price DECIMAL(10,2) NOT NULL,
     start_time TIMESTAMP WITH TIME ZONE NOT NULL,
     end_time TIMESTAMP WITH TIME ZONE NOT NULL
@@ -29,13 +39,22 @@ CREATE TABLE IF NOT EXISTS bookings (
     showtime_id BIGINT NOT NULL REFERENCES showtimes(id),
     seat_number INTEGER NOT NULL,
     user_id UUID NOT NULL,
-    UNIQUE (showtime_id, seat_number)
+    CONSTRAINT uk_booking_showtime_seat UNIQUE (showtime_id, seat_number)
+);
+
+-- Create idempotency keys table
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    booking_id UUID NOT NULL,
+    showtime_id BIGINT NOT NULL,
+    seat_number INTEGER NOT NULL,
+    user_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
 );
 
 -- Create indexes for better performance
 CREATE INDEX idx_movie_title ON movies(title);
-CREATE INDEX idx_showtime_movie ON showtimes(movie_id);
-CREATE INDEX idx_showtime_theater ON showtimes(theater);
-CREATE INDEX idx_showtime_start ON showtimes(start_time);
+-- The showtime indexes (start_time, id), (theater_id, start_time, id) and (movie_id, start_time, id)
+-- are declared on the Showtime entity, so Hibernate creates them on every database
 CREATE INDEX idx_booking_showtime ON bookings(showtime_id);
 CREATE INDEX idx_booking_user ON bookings(user_id);
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@SpringBootTest(properties = {
+        "booking.admission.user.rate=0.1",
+        "booking.admission.user.burst=1",
+        "booking.admission.max-wait=PT0S"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class BookingAdmissionIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void bookTicket_ShouldReturnTooManyRequests_WhenUserExceedsLimit() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(1L, 520, userId))))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(1L, 521, userId))))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "10"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errorCode").value("TOO_MANY_REQUESTS"));
+
+        // Another user is not affected
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(1L, 521, UUID.randomUUID()))))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    public void bookTicket_ShouldReplayIdempotentRetries_WhenUserIsOutOfTokens() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String content = objectMapper.writeValueAsString(new Booking(1L, 522, userId));
+
+        String created = mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", "admission-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        // The retry is answered from the idempotency cache and does not need a token
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", "admission-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().json(created));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(1L, 523, userId))))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests());
+    }
+}
@@ -0,0 +1,93 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import com.att.tdp.popcorn_palace.services.BookingBatchWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingBatchWriterTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingBatchWriter bookingBatchWriter;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        bookingBatchWriter = new BookingBatchWriter(bookingRepository, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void insertAll_WithoutConflicts_ShouldWriteOneBatch() {
+        // Arrange
+        List<Booking> bookings = List.of(new Booking(1L, 1, UUID.randomUUID()), new Booking(1L, 2, UUID.randomUUID()));
+
+        // Act
+        RuntimeException[] failures = bookingBatchWriter.insertAll(bookings);
+
+        // Assert
+        assertArrayEquals(new RuntimeException[2], failures);
+        verify(bookingRepository).saveAllAndFlush(bookings);
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void insertAll_WithUniqueViolation_ShouldIsolateConflictingBooking() {
+        // Arrange
+        Booking free = new Booking(1L, 1, UUID.randomUUID());
+        Booking taken = new Booking(1L, 2, UUID.randomUUID());
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException(
+                "duplicate key", new SQLException("duplicate key value violates unique constraint", "23505"));
+        when(bookingRepository.saveAllAndFlush(anyList())).thenThrow(duplicate);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(free).thenThrow(duplicate);
+
+        // Act
+        RuntimeException[] failures = bookingBatchWriter.insertAll(List.of(free, taken));
+
+        // Assert
+        assertNull(failures[0]);
+        assertInstanceOf(ResourceAlreadyExistsException.class, failures[1]);
+        verify(bookingRepository).saveAndFlush(free);
+        verify(bookingRepository).saveAndFlush(taken);
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void insertAll_WithOtherFailure_ShouldFailEveryBooking() {
+        // Arrange
+        IllegalStateException failure = new IllegalStateException("connection lost");
+        when(bookingRepository.saveAllAndFlush(anyList())).thenThrow(failure);
+
+        // Act
+        RuntimeException[] failures = bookingBatchWriter.insertAll(
+                List.of(new Booking(1L, 1, UUID.randomUUID()), new Booking(1L, 2, UUID.randomUUID())));
+
+        // Assert
+        assertSame(failure, failures[0]);
+        assertSame(failure, failures[1]);
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+}
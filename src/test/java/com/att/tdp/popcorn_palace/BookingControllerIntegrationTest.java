@@ -1,8 +1,13 @@
 package com.att.tdp.popcorn_palace;
 
+import com.att.tdp.popcorn_palace.models.BatchBookingRequest;
 import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.models.IdempotencyRecord;
 import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import com.att.tdp.popcorn_palace.repositories.IdempotencyRecordRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +23,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
@@ -32,6 +40,12 @@ public class BookingControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
     private Long showtimeId;
     private UUID userId;
 
@@ -162,4 +176,161 @@ public class BookingControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(booking)))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
+
+    @Test
+    public void bookTicket_ShouldReturnConflict_WhenSeatWasBookedOutsideTheSeatMap() throws Exception {
+        // Warm the seat map of the showtime
+        Booking booking1 = new Booking(showtimeId, 301, userId);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(booking1)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Another instance books seat 300 directly in the database
+        bookingRepository.saveAndFlush(new Booking(showtimeId, 300, UUID.randomUUID()));
+
+        // The unique constraint rejects the double booking
+        Booking booking2 = new Booking(showtimeId, 300, userId);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(booking2)))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void bookTicket_ShouldReturnOriginalBooking_WhenRetriedWithSameIdempotencyKey() throws Exception {
+        Booking booking = new Booking(showtimeId, 510, userId);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(booking)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn();
+        String bookingId = JsonPath.read(first.getResponse().getContentAsString(), "$.bookingId");
+
+        // The seat is taken now, so only a replay can answer with 201
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(booking)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.bookingId").value(bookingId));
+    }
+
+    @Test
+    public void bookTicket_ShouldReturnBadRequest_WhenIdempotencyKeyIsReusedForAnotherSeat() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(showtimeId, 511, userId))))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(showtimeId, 512, userId))))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void idempotencyRecords_ShouldOnlyDeleteKeysCreatedBeforeTheCutoff() {
+        Instant now = Instant.now();
+        idempotencyRecordRepository.save(new IdempotencyRecord("expired-key", UUID.randomUUID(), showtimeId, 513, userId,
+                now.minus(25, ChronoUnit.HOURS)));
+        idempotencyRecordRepository.save(new IdempotencyRecord("fresh-key", UUID.randomUUID(), showtimeId, 514, userId,
+                now.minus(1, ChronoUnit.HOURS)));
+
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(now.minus(24, ChronoUnit.HOURS));
+
+        assertEquals(1, purged);
+        assertFalse(idempotencyRecordRepository.existsById("expired-key"));
+        assertTrue(idempotencyRecordRepository.existsById("fresh-key"));
+    }
+
+    @Test
+    public void bookTickets_ShouldReturnAllBookingIds_WhenSeatsAreFree() throws Exception {
+        BatchBookingRequest request = new BatchBookingRequest(showtimeId, userId, List.of(400, 401, 402, 403));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.bookingIds.length()").value(4));
+    }
+
+    @Test
+    public void bookTickets_ShouldReturnConflictAndBookNothing_WhenAnySeatIsTaken() throws Exception {
+        // Seat 5 of showtime 1 is booked in data.sql
+        BatchBookingRequest request = new BatchBookingRequest(showtimeId, userId, List.of(410, 5, 411));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
+        // The other seats are still free
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(showtimeId, 410, userId))))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    public void bookTickets_ShouldReturnBadRequest_WhenSeatsAreMissing() throws Exception {
+        BatchBookingRequest request = new BatchBookingRequest(showtimeId, userId, List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void holdSeats_ShouldBlockSeatsUntilConfirmed() throws Exception {
+        BatchBookingRequest request = new BatchBookingRequest(showtimeId, userId, List.of(500, 501));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/bookings/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.holdId").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.expiresAt").exists())
+                .andReturn();
+
+        String holdId = JsonPath.read(result.getResponse().getContentAsString(), "$.holdId");
+
+        // Another user cannot book a held seat
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Booking(showtimeId, 500, UUID.randomUUID()))))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
+        // Only the user who took the hold may confirm it
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/holds/{holdId}/confirm", holdId)
+                        .param("userId", UUID.randomUUID().toString()))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/holds/{holdId}/confirm", holdId)
+                        .param("userId", userId.toString()))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.bookingIds.length()").value(2));
+
+        // A hold can only be confirmed once
+        mockMvc.perform(MockMvcRequestBuilders.post("/bookings/holds/{holdId}/confirm", holdId)
+                        .param("userId", userId.toString()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void releaseHold_ShouldReturnNotFound_WhenHoldDoesNotExist() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/bookings/holds/{holdId}", UUID.randomUUID())
+                        .param("userId", userId.toString()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.services.BookingBatchWriter;
+import com.att.tdp.popcorn_palace.services.BookingGroupCommitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingGroupCommitterTest {
+
+    @Mock
+    private BookingBatchWriter bookingBatchWriter;
+
+    private BookingGroupCommitter bookingGroupCommitter;
+
+    @BeforeEach
+    void setUp() {
+        bookingGroupCommitter = new BookingGroupCommitter(bookingBatchWriter, Duration.ofMillis(50), 8, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bookingGroupCommitter.shutdown();
+    }
+
+    @Test
+    void insert_ShouldReturnPersistedBooking() {
+        // Arrange
+        UUID bookingId = UUID.randomUUID();
+        when(bookingBatchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setBookingId(bookingId));
+            return new RuntimeException[bookings.size()];
+        });
+
+        // Act
+        Booking booking = bookingGroupCommitter.insert(new Booking(1L, 10, UUID.randomUUID()));
+
+        // Assert
+        assertEquals(bookingId, booking.getBookingId());
+    }
+
+    @Test
+    void insert_WithFailedRow_ShouldFailOnlyThatCaller() {
+        // Arrange
+        when(bookingBatchWriter.insertAll(anyList()))
+                .thenReturn(new RuntimeException[]{new ResourceAlreadyExistsException("Seat 10 for showtime 1 is already booked")});
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> bookingGroupCommitter.insert(new Booking(1L, 10, UUID.randomUUID())));
+    }
+
+    @Test
+    void insert_AfterShutdown_ShouldFailWithoutWaiting() throws Exception {
+        // Arrange
+        bookingGroupCommitter.shutdown();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> bookingGroupCommitter.insert(new Booking(1L, 10, UUID.randomUUID())));
+        verify(bookingBatchWriter, never()).insertAll(anyList());
+    }
+
+    @Test
+    void insert_WhenGroupTakesLongerThanMaxWait_ShouldStopWaiting() throws Exception {
+        // Arrange
+        BookingGroupCommitter impatient = new BookingGroupCommitter(bookingBatchWriter, Duration.ofMillis(1), 8, Duration.ofMillis(100));
+        CountDownLatch stalled = new CountDownLatch(1);
+        when(bookingBatchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            stalled.await();
+            return new RuntimeException[invocation.<List<Booking>>getArgument(0).size()];
+        });
+
+        // Act & Assert
+        try {
+            assertThrows(IllegalStateException.class, () -> impatient.insert(new Booking(1L, 10, UUID.randomUUID())));
+        } finally {
+            stalled.countDown();
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void insert_WithConcurrentCallers_ShouldCommitThemInGroups() throws Exception {
+        // Arrange
+        AtomicInteger groups = new AtomicInteger();
+        AtomicInteger persisted = new AtomicInteger();
+        when(bookingBatchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            assertTrue(bookings.size() <= 8);
+            groups.incrementAndGet();
+            persisted.addAndGet(bookings.size());
+            return new RuntimeException[bookings.size()];
+        });
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        for (int i = 0; i < callers; i++) {
+            int seatNumber = i + 1;
+            executor.submit(() -> {
+                start.await();
+                return bookingGroupCommitter.insert(new Booking(1L, seatNumber, UUID.randomUUID()));
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(callers, persisted.get());
+        assertTrue(groups.get() < callers);
+    }
+}
@@ -0,0 +1,116 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compares insert throughput and primary key index size of random (v4) and time-ordered (v7)
+ * booking IDs. Skipped unless run with {@code -Dbenchmark=true}; point it at PostgreSQL with
+ * {@code -Dspring.datasource.url=...} to get index sizes, which H2 does not report.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookingIdBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void compareRandomAndTimeOrderedIds() throws SQLException {
+        boolean postgres = isPostgres();
+
+        // Warm up both paths before measuring
+        run("uuid_benchmark_warmup", UUID::randomUUID, ROWS / 10, postgres);
+        run("uuid_benchmark_warmup", UuidV7Generator::next, ROWS / 10, postgres);
+
+        Result random = run("uuid_benchmark_v4", UUID::randomUUID, ROWS, postgres);
+        Result timeOrdered = run("uuid_benchmark_v7", UuidV7Generator::next, ROWS, postgres);
+
+        System.out.printf("%-6s %12s %16s %18s%n", "ids", "rows/s", "index bytes", "right-edge inserts");
+        print("v4", random);
+        print("v7", timeOrdered);
+    }
+
+    private Result run(String table, Supplier<UUID> ids, int rows, boolean postgres) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, seat_number INTEGER NOT NULL)");
+        try {
+            List<UUID> generated = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                generated.add(ids.get());
+            }
+
+            long start = System.nanoTime();
+            for (int from = 0; from < rows; from += BATCH_SIZE) {
+                List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+                for (int i = from; i < Math.min(rows, from + BATCH_SIZE); i++) {
+                    batch.add(new Object[]{generated.get(i), i});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " (id, seat_number) VALUES (?, ?)", batch);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Long indexBytes = postgres
+                    ? jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_pkey')", Long.class)
+                    : null;
+            return new Result(rows / seconds, indexBytes, rightEdgeShare(generated));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+    }
+
+    /**
+     * Share of keys that sort after every key inserted before them, i.e. that append to the
+     * rightmost index page instead of splitting a page in the middle of the tree.
+     */
+    private static double rightEdgeShare(List<UUID> ids) {
+        UUID max = null;
+        int rightEdge = 0;
+        for (UUID id : ids) {
+            if (max == null || compareUnsigned(id, max) > 0) {
+                max = id;
+                rightEdge++;
+            }
+        }
+        return (double) rightEdge / ids.size();
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private boolean isPostgres() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+
+    private static void print(String ids, Result result) {
+        System.out.printf("%-6s %12.0f %16s %17.1f%%%n", ids, result.rowsPerSecond(),
+                result.indexBytes() == null ? "n/a" : result.indexBytes().toString(), result.rightEdgeShare() * 100);
+    }
+
+    private record Result(double rowsPerSecond, Long indexBytes, double rightEdgeShare) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.models.BookingResponse;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.BookingBatchWriter;
+import com.att.tdp.popcorn_palace.services.BookingSequencer;
+import com.att.tdp.popcorn_palace.services.SeatAllocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingSequencerTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    @Mock
+    private BookingBatchWriter bookingBatchWriter;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingSequencer bookingSequencer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        SeatAllocator seatAllocator = new SeatAllocator(bookingRepository, showtimeRepository);
+        bookingSequencer = new BookingSequencer(seatAllocator, bookingBatchWriter, meterRegistry, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingSequencer.shutdown();
+    }
+
+    @Test
+    void book_WithFreeSeat_ShouldPersistAndRecordMetrics() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        UUID bookingId = UUID.randomUUID();
+        when(bookingBatchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setBookingId(bookingId));
+            return new RuntimeException[bookings.size()];
+        });
+
+        // Act
+        BookingResponse response = bookingSequencer.book(new Booking(1L, 10, UUID.randomUUID()));
+
+        // Assert
+        assertEquals(bookingId, response.getBookingId());
+        assertEquals(1.0, meterRegistry.get("booking.sequencer.requests")
+                .tag("outcome", "booked").counter().count());
+        assertEquals(0.0, meterRegistry.get("booking.sequencer.queue.depth").gauge().value());
+        assertEquals(1, meterRegistry.get("booking.sequencer.batch.size").summary().count());
+    }
+
+    @Test
+    void book_ForManyShowtimes_ShouldRetireIdleLanesAndKeepMetricsAggregated() throws Exception {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingBatchWriter.insertAll(anyList()))
+                .thenAnswer(invocation -> new RuntimeException[invocation.<List<Booking>>getArgument(0).size()]);
+
+        // Act
+        for (long showtimeId = 1; showtimeId <= 50; showtimeId++) {
+            bookingSequencer.book(new Booking(showtimeId, 1, UUID.randomUUID()));
+        }
+
+        // Assert
+        // A lane is retired right after its writer completes the last booking
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (meterRegistry.get("booking.sequencer.lanes").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0.0, meterRegistry.get("booking.sequencer.lanes").gauge().value());
+        assertEquals(1, meterRegistry.get("booking.sequencer.queue.depth").gauges().size());
+        assertEquals(3, meterRegistry.get("booking.sequencer.requests").counters().size());
+        assertEquals(50.0, meterRegistry.get("booking.sequencer.requests").tag("outcome", "booked").counter().count());
+    }
+
+    @Test
+    void book_WithNonExistentShowtime_ShouldThrowResourceNotFoundException() {
+        // Arrange
+        when(showtimeRepository.existsById(9L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingSequencer.book(new Booking(9L, 1, UUID.randomUUID())));
+        verify(bookingBatchWriter, never()).insertAll(anyList());
+    }
+
+    @Test
+    void book_WhenInsertFails_ShouldReleaseSeat() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        when(bookingBatchWriter.insertAll(anyList()))
+                .thenReturn(new RuntimeException[]{new IllegalStateException("connection lost")})
+                .thenReturn(new RuntimeException[1]);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> bookingSequencer.book(new Booking(1L, 10, UUID.randomUUID())));
+        assertDoesNotThrow(() -> bookingSequencer.book(new Booking(1L, 10, UUID.randomUUID())));
+        assertEquals(1.0, meterRegistry.get("booking.sequencer.requests")
+                .tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void submit_WithConcurrentRequestsForSameSeat_ShouldBookSeatExactlyOnce() throws Exception {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        AtomicInteger persisted = new AtomicInteger();
+        when(bookingBatchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            persisted.addAndGet(bookings.size());
+            return new RuntimeException[bookings.size()];
+        });
+
+        // Act
+        List<CompletableFuture<BookingResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(bookingSequencer.submit(new Booking(1L, 1 + i % 20, UUID.randomUUID())));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .get(10, TimeUnit.SECONDS);
+
+        // Assert
+        long booked = results.stream().filter(result -> !result.isCompletedExceptionally()).count();
+        assertEquals(20, booked);
+        assertEquals(20, persisted.get());
+        for (CompletableFuture<BookingResponse> result : results) {
+            if (result.isCompletedExceptionally()) {
+                CompletionException e = assertThrows(CompletionException.class, result::join);
+                assertInstanceOf(ResourceAlreadyExistsException.class, e.getCause());
+            }
+        }
+    }
+}
@@ -1,20 +1,33 @@
 package com.att.tdp.popcorn_palace;
 
 import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.OperationNotAllowedException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.BatchBookingRequest;
+import com.att.tdp.popcorn_palace.models.BatchBookingResponse;
 import com.att.tdp.popcorn_palace.models.Booking;
 import com.att.tdp.popcorn_palace.models.BookingResponse;
 import com.att.tdp.popcorn_palace.repositories.BookingRepository;
 import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.BookingGroupCommitter;
 import com.att.tdp.popcorn_palace.services.BookingService;
+import com.att.tdp.popcorn_palace.models.SeatHoldResponse;
+import com.att.tdp.popcorn_palace.services.SeatAllocator;
+import com.att.tdp.popcorn_palace.services.SeatHoldRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,15 +43,20 @@ public class BookingServiceTest {
     @Mock
     private ShowtimeRepository showtimeRepository;
 
-    @InjectMocks
     private BookingService bookingService;
+    private SeatHoldRegistry seatHoldRegistry;
 
     private Booking testBooking;
+    private Booking savedBooking;
     private UUID bookingId;
     private UUID userId;
 
     @BeforeEach
     void setUp() {
+        SeatAllocator seatAllocator = new SeatAllocator(bookingRepository, showtimeRepository);
+        seatHoldRegistry = new SeatHoldRegistry(seatAllocator, Duration.ofMinutes(10), Duration.ofSeconds(1), 64);
+        bookingService = new BookingService(bookingRepository, seatAllocator, seatHoldRegistry, Optional.empty(), Optional.empty());
+
         bookingId = UUID.randomUUID();
         userId = UUID.randomUUID();
         
@@ -47,24 +65,32 @@ public class BookingServiceTest {
         testBooking.setShowtimeId(1L);
         testBooking.setSeatNumber(15);
         testBooking.setUserId(userId);
+
+        savedBooking = new Booking(testBooking.getShowtimeId(), testBooking.getSeatNumber(), userId);
+        savedBooking.setBookingId(bookingId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatHoldRegistry.shutdown();
     }
 
     @Test
     void bookTicket_WithValidData_ShouldCreateBooking() {
         // Arrange
         when(showtimeRepository.existsById(anyLong())).thenReturn(true);
-        when(bookingRepository.existsByShowtimeIdAndSeatNumber(anyLong(), anyInt())).thenReturn(false);
-        when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
 
         // Act
         BookingResponse response = bookingService.bookTicket(testBooking);
 
         // Assert
         assertEquals(bookingId, response.getBookingId());
+        assertNull(testBooking.getBookingId()); // client supplied IDs are ignored so the insert never merges
         verify(showtimeRepository).existsById(testBooking.getShowtimeId());
-        verify(bookingRepository).existsByShowtimeIdAndSeatNumber(
-                testBooking.getShowtimeId(), testBooking.getSeatNumber());
-        verify(bookingRepository).save(testBooking);
+        verify(bookingRepository).findSeatNumbersByShowtimeId(testBooking.getShowtimeId());
+        verify(bookingRepository).saveAndFlush(testBooking);
     }
 
     @Test
@@ -81,15 +107,15 @@ public class BookingServiceTest {
         assertTrue(exception.getMessage().contains("Showtime"));
         assertTrue(exception.getMessage().contains(testBooking.getShowtimeId().toString()));
         verify(showtimeRepository).existsById(testBooking.getShowtimeId());
-        verify(bookingRepository, never()).existsByShowtimeIdAndSeatNumber(anyLong(), anyInt());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).findSeatNumbersByShowtimeId(anyLong());
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
     void bookTicket_WithAlreadyBookedSeat_ShouldThrowResourceAlreadyExistsException() {
         // Arrange
         when(showtimeRepository.existsById(anyLong())).thenReturn(true);
-        when(bookingRepository.existsByShowtimeIdAndSeatNumber(anyLong(), anyInt())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of(testBooking.getSeatNumber()));
 
         // Act & Assert
         ResourceAlreadyExistsException exception = assertThrows(
@@ -100,9 +126,97 @@ public class BookingServiceTest {
         assertTrue(exception.getMessage().contains("Seat"));
         assertTrue(exception.getMessage().contains(testBooking.getSeatNumber().toString()));
         verify(showtimeRepository).existsById(testBooking.getShowtimeId());
-        verify(bookingRepository).existsByShowtimeIdAndSeatNumber(
-                testBooking.getShowtimeId(), testBooking.getSeatNumber());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository).findSeatNumbersByShowtimeId(testBooking.getShowtimeId());
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void bookTicket_WithSeatClaimedEarlier_ShouldRejectWithoutQueryingDatabase() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+        bookingService.bookTicket(testBooking);
+
+        Booking secondBooking = new Booking(testBooking.getShowtimeId(), testBooking.getSeatNumber(), UUID.randomUUID());
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.bookTicket(secondBooking));
+        verify(showtimeRepository, times(1)).existsById(testBooking.getShowtimeId());
+        verify(bookingRepository, times(1)).findSeatNumbersByShowtimeId(testBooking.getShowtimeId());
+        verify(bookingRepository, times(1)).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void bookTicket_WhenSaveFails_ShouldReleaseSeat() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(savedBooking);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bookingService.bookTicket(testBooking));
+        BookingResponse response = bookingService.bookTicket(testBooking);
+
+        assertEquals(bookingId, response.getBookingId());
+        verify(bookingRepository, times(2)).saveAndFlush(testBooking);
+    }
+
+    @Test
+    void bookTicket_WithSeatBookedByAnotherInstance_ShouldTranslateUniqueViolation() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key", new SQLException("duplicate key value violates unique constraint", "23505")));
+
+        // Act & Assert
+        ResourceAlreadyExistsException exception = assertThrows(
+            ResourceAlreadyExistsException.class,
+            () -> bookingService.bookTicket(testBooking)
+        );
+
+        assertTrue(exception.getMessage().contains(testBooking.getSeatNumber().toString()));
+
+        // The seat is taken in the database, so it stays claimed in memory
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.bookTicket(testBooking));
+        verify(bookingRepository, times(1)).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void bookTicket_WithOtherIntegrityViolation_ShouldPropagateAndReleaseSeat() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class)))
+                .thenThrow(new DataIntegrityViolationException(
+                        "not null", new SQLException("null value in column", "23502")))
+                .thenReturn(savedBooking);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.bookTicket(testBooking));
+        assertEquals(bookingId, bookingService.bookTicket(testBooking).getBookingId());
+    }
+
+    @Test
+    void bookTicket_WithGroupCommit_ShouldInsertThroughGroupAndReleaseSeatOnFailure() {
+        // Arrange
+        BookingGroupCommitter groupCommitter = mock(BookingGroupCommitter.class);
+        BookingService groupedService = new BookingService(bookingRepository,
+                new SeatAllocator(bookingRepository, showtimeRepository), seatHoldRegistry,
+                Optional.empty(), Optional.of(groupCommitter));
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(groupCommitter.insert(any(Booking.class)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(savedBooking);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> groupedService.bookTicket(testBooking));
+        assertEquals(bookingId, groupedService.bookTicket(testBooking).getBookingId());
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -118,7 +232,7 @@ public class BookingServiceTest {
         
         assertTrue(exception.getMessage().contains("showtimeId"));
         verify(showtimeRepository, never()).existsById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -134,7 +248,7 @@ public class BookingServiceTest {
         
         assertTrue(exception.getMessage().contains("seatNumber"));
         verify(showtimeRepository, never()).existsById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -150,7 +264,7 @@ public class BookingServiceTest {
         
         assertTrue(exception.getMessage().contains("seatNumber"));
         verify(showtimeRepository, never()).existsById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -166,6 +280,139 @@ public class BookingServiceTest {
         
         assertTrue(exception.getMessage().contains("userId"));
         verify(showtimeRepository, never()).existsById(anyLong());
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void bookTickets_WithFreeSeats_ShouldInsertAllBookingsInOneBatch() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setBookingId(UUID.randomUUID()));
+            return bookings;
+        });
+
+        // Act
+        BatchBookingResponse response = bookingService.bookTickets(new BatchBookingRequest(1L, userId, List.of(1, 2, 3)));
+
+        // Assert
+        assertEquals(3, response.getBookingIds().size());
+        verify(showtimeRepository, times(1)).existsById(1L);
+        verify(bookingRepository, times(1)).saveAllAndFlush(anyList());
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void bookTickets_WithTakenSeat_ShouldRejectWholeBatchAndReleaseOtherSeats() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of(2));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+
+        // Act & Assert
+        ResourceAlreadyExistsException exception = assertThrows(
+            ResourceAlreadyExistsException.class,
+            () -> bookingService.bookTickets(new BatchBookingRequest(1L, userId, List.of(1, 2, 3)))
+        );
+
+        assertTrue(exception.getMessage().contains("[2]"));
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+
+        // Seats claimed before the conflict was found are free again
+        assertNotNull(bookingService.bookTicket(new Booking(1L, 1, userId)));
+    }
+
+    @Test
+    void bookTickets_WithDuplicateSeats_ShouldThrowInvalidResourceException() {
+        // Act & Assert
+        InvalidResourceException exception = assertThrows(
+            InvalidResourceException.class,
+            () -> bookingService.bookTickets(new BatchBookingRequest(1L, userId, List.of(4, 4)))
+        );
+
+        assertTrue(exception.getMessage().contains("seatNumbers"));
+        verify(showtimeRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void holdSeats_ShouldRejectOtherBookingsUntilReleased() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+
+        // Act
+        SeatHoldResponse hold = bookingService.holdSeats(new BatchBookingRequest(1L, userId, List.of(15, 16)));
+
+        // Assert
+        assertNotNull(hold.getHoldId());
+        assertTrue(hold.getExpiresAt().isAfter(Instant.now()));
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.bookTicket(testBooking));
+
+        bookingService.releaseHold(hold.getHoldId(), userId);
+        assertEquals(bookingId, bookingService.bookTicket(testBooking).getBookingId());
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void confirmHold_ShouldInsertHeldSeatsOnce() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        SeatHoldResponse hold = bookingService.holdSeats(new BatchBookingRequest(1L, userId, List.of(15, 16)));
+
+        // Act
+        BatchBookingResponse response = bookingService.confirmHold(hold.getHoldId(), userId);
+
+        // Assert
+        assertEquals(2, response.getBookingIds().size());
+        assertThrows(ResourceNotFoundException.class, () -> bookingService.confirmHold(hold.getHoldId(), userId));
+        verify(bookingRepository, times(1)).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void confirmHold_ByAnotherUser_ShouldBeRejectedAndKeepTheHold() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(anyLong())).thenReturn(List.of());
+        when(bookingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        SeatHoldResponse hold = bookingService.holdSeats(new BatchBookingRequest(1L, userId, List.of(15, 16)));
+
+        // Act & Assert
+        assertThrows(OperationNotAllowedException.class, () -> bookingService.confirmHold(hold.getHoldId(), UUID.randomUUID()));
+        assertThrows(OperationNotAllowedException.class, () -> bookingService.releaseHold(hold.getHoldId(), UUID.randomUUID()));
+        assertEquals(2, bookingService.confirmHold(hold.getHoldId(), userId).getBookingIds().size());
+        verify(bookingRepository, times(1)).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void bookTickets_WithSeatBookedByAnotherInstance_ShouldKeepOtherUsersHolds() {
+        // Arrange
+        when(showtimeRepository.existsById(anyLong())).thenReturn(true);
+        // Seat 30 gets booked by another instance after the seat map was loaded
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of()).thenReturn(List.of(30));
+        when(bookingRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException(
+                        "duplicate key", new SQLException("duplicate key value violates unique constraint", "23505")))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
+        SeatHoldResponse hold = bookingService.holdSeats(new BatchBookingRequest(1L, userId, List.of(20, 21)));
+
+        // Act
+        UUID otherUserId = UUID.randomUUID();
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> bookingService.bookTickets(new BatchBookingRequest(1L, otherUserId, List.of(30, 31))));
+
+        // Assert
+        // The held seats are still taken and the seat booked elsewhere is now known
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.bookTicket(new Booking(1L, 20, otherUserId)));
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.bookTicket(new Booking(1L, 30, otherUserId)));
+        // The batch's other seat was released
+        assertEquals(bookingId, bookingService.bookTicket(new Booking(1L, 31, otherUserId)).getBookingId());
+        assertEquals(2, bookingService.confirmHold(hold.getHoldId(), userId).getBookingIds().size());
+        verify(bookingRepository, times(2)).findSeatNumbersByShowtimeId(1L);
     }
 }
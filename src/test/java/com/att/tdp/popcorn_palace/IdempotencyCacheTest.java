@@ -0,0 +1,218 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
+import com.att.tdp.popcorn_palace.exceptions.TooManyRequestsException;
+import com.att.tdp.popcorn_palace.models.Booking;
+import com.att.tdp.popcorn_palace.models.BookingResponse;
+import com.att.tdp.popcorn_palace.models.IdempotencyRecord;
+import com.att.tdp.popcorn_palace.repositories.IdempotencyRecordRepository;
+import com.att.tdp.popcorn_palace.services.IdempotencyCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyCacheTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyCache idempotencyCache;
+    private Booking booking;
+    private BookingResponse bookingResponse;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyCache = new IdempotencyCache(idempotencyRecordRepository, Duration.ofHours(24), 100, false, Duration.ofSeconds(5));
+        booking = new Booking(1L, 15, UUID.randomUUID());
+        bookingResponse = new BookingResponse(UUID.randomUUID());
+    }
+
+    @Test
+    void execute_WithRepeatedKey_ShouldBookOnce() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        BookingResponse first = idempotencyCache.execute("key-1", booking, () -> {
+            calls.incrementAndGet();
+            return bookingResponse;
+        });
+        BookingResponse retry = idempotencyCache.execute("key-1", booking, () -> {
+            calls.incrementAndGet();
+            throw new ResourceAlreadyExistsException("Seat 15 for showtime 1 is already booked");
+        });
+
+        // Assert
+        assertEquals(1, calls.get());
+        assertSame(first, retry);
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_WithFailedBooking_ShouldNotRememberKey() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> idempotencyCache.execute("key-1", booking, () -> {
+            throw new IllegalStateException("connection lost");
+        }));
+        BookingResponse retry = idempotencyCache.execute("key-1", booking, () -> bookingResponse);
+
+        // Assert
+        assertSame(bookingResponse, retry);
+    }
+
+    @Test
+    void execute_WithKeyUsedForAnotherBooking_ShouldThrowInvalidResourceException() {
+        // Arrange
+        idempotencyCache.execute("key-1", booking, () -> bookingResponse);
+        Booking otherSeat = new Booking(1L, 16, booking.getUserId());
+
+        // Act & Assert
+        assertThrows(InvalidResourceException.class,
+                () -> idempotencyCache.execute("key-1", otherSeat, () -> bookingResponse));
+    }
+
+    @Test
+    void execute_WithConcurrentRetries_ShouldWaitForFirstRequest() throws Exception {
+        // Arrange
+        CountDownLatch booking1Started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<BookingResponse> first = executor.submit(() -> idempotencyCache.execute("key-1", booking, () -> {
+            calls.incrementAndGet();
+            booking1Started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return bookingResponse;
+        }));
+        assertTrue(booking1Started.await(5, TimeUnit.SECONDS));
+        Future<BookingResponse> retry = executor.submit(() -> idempotencyCache.execute("key-1", booking, () -> {
+            calls.incrementAndGet();
+            return new BookingResponse(UUID.randomUUID());
+        }));
+        release.countDown();
+
+        // Assert
+        assertSame(bookingResponse, first.get(5, TimeUnit.SECONDS));
+        assertSame(bookingResponse, retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_WhenFirstRequestIsStuck_ShouldRejectRetryAfterMaxWait() throws Exception {
+        // Arrange
+        IdempotencyCache impatientCache = new IdempotencyCache(idempotencyRecordRepository, Duration.ofHours(24), 100,
+                false, Duration.ofMillis(50));
+        CountDownLatch booking1Started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<BookingResponse> first = executor.submit(() -> impatientCache.execute("key-1", booking, () -> {
+            booking1Started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return bookingResponse;
+        }));
+        assertTrue(booking1Started.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> impatientCache.execute("key-1", booking, () -> {
+                    throw new AssertionError("must not book");
+                }));
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+
+        // The first request is unaffected, and a later retry gets its booking
+        release.countDown();
+        assertSame(bookingResponse, first.get(5, TimeUnit.SECONDS));
+        assertSame(bookingResponse, impatientCache.execute("key-1", booking, () -> {
+            throw new AssertionError("must not book");
+        }));
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_WithPersistedKey_ShouldReturnStoredBookingWithoutBooking() {
+        // Arrange
+        IdempotencyCache persistentCache = new IdempotencyCache(idempotencyRecordRepository, Duration.ofHours(24), 100, true, Duration.ofSeconds(5));
+        UUID bookingId = UUID.randomUUID();
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(new IdempotencyRecord(
+                "key-1", bookingId, booking.getShowtimeId(), booking.getSeatNumber(), booking.getUserId(), Instant.now())));
+
+        // Act
+        BookingResponse response = persistentCache.execute("key-1", booking, () -> {
+            throw new AssertionError("must not book");
+        });
+
+        // Assert
+        assertEquals(bookingId, response.getBookingId());
+        verify(idempotencyRecordRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_WithPersistenceEnabled_ShouldStoreNewKey() {
+        // Arrange
+        IdempotencyCache persistentCache = new IdempotencyCache(idempotencyRecordRepository, Duration.ofHours(24), 100, true, Duration.ofSeconds(5));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+
+        // Act
+        persistentCache.execute("key-1", booking, () -> bookingResponse);
+
+        // Assert
+        verify(idempotencyRecordRepository).save(argThat(record ->
+                record.getIdempotencyKey().equals("key-1") && record.getBookingId().equals(bookingResponse.getBookingId())));
+    }
+
+    @Test
+    void purgeExpired_WithPersistenceEnabled_ShouldDeleteKeysOlderThanTtl() {
+        // Arrange
+        IdempotencyCache persistentCache = new IdempotencyCache(idempotencyRecordRepository, Duration.ofHours(24), 100, true, Duration.ofSeconds(5));
+        when(idempotencyRecordRepository.deleteCreatedBefore(any())).thenReturn(3);
+        Instant before = Instant.now().minus(Duration.ofHours(24));
+
+        // Act
+        int purged = persistentCache.purgeExpired();
+
+        // Assert
+        assertEquals(3, purged);
+        verify(idempotencyRecordRepository).deleteCreatedBefore(argThat(cutoff ->
+                !cutoff.isBefore(before) && !cutoff.isAfter(Instant.now().minus(Duration.ofHours(24)))));
+    }
+
+    @Test
+    void purgeExpired_WithoutPersistence_ShouldNotTouchTheTable() {
+        // Act
+        int purged = idempotencyCache.purgeExpired();
+
+        // Assert
+        assertEquals(0, purged);
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+}
@@ -1,8 +1,11 @@
 package com.att.tdp.popcorn_palace;
 
 import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.Showtime;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -11,10 +14,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 @SpringBootTest
@@ -217,4 +224,168 @@ public class MovieControllerIntegrationTest {
         mockMvc.perform(MockMvcRequestBuilders.delete("/movies/Non Existent Movie"))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getUpcomingShowtimes_ShouldListOnlyFutureShowtimesIncludingNewOnes() throws Exception {
+        // The showtimes of movie 1 in data.sql are in the past
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/{movieId}/showtimes", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(0));
+
+        Instant start = Instant.now().plus(40, ChronoUnit.DAYS);
+        Showtime showtime = new Showtime(11.5, 1L, "Theater Upcoming Test", start, start.plus(2, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(showtime)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/{movieId}/showtimes", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].theater").value("Theater Upcoming Test"));
+    }
+
+    @Test
+    public void getUpcomingShowtimes_ShouldReturnNotFound_WhenMovieDoesNotExist() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/{movieId}/showtimes", 999999L))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void getAllMovies_ShouldAnswerNotModifiedUntilTheCatalogChanges() throws Exception {
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/movies/all"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"))
+                .andReturn();
+        String eTag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/all").header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", eTag))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Movie movie = new Movie("Catalog Version Test Movie", "Drama", 100, 7.5, 2024);
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        MvcResult changed = mockMvc.perform(MockMvcRequestBuilders.get("/movies/all").header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.title == 'Catalog Version Test Movie')]").exists())
+                .andReturn();
+        Assertions.assertNotEquals(eTag, changed.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void getAllMovies_WithLimit_ShouldWalkTheCatalogInIdOrder() throws Exception {
+        int total = JsonPath.read(mockMvc.perform(MockMvcRequestBuilders.get("/movies/all"))
+                .andReturn().getResponse().getContentAsString(), "$.length()");
+
+        List<Integer> seen = new ArrayList<>();
+        Integer afterId = null;
+        do {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/movies/all").param("limit", "2");
+            if (afterId != null) {
+                request.param("afterId", afterId.toString());
+            }
+            String page = mockMvc.perform(request)
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.movies.length()").value(Matchers.lessThanOrEqualTo(2)))
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(page, "$.movies[*].id"));
+            afterId = JsonPath.read(page, "$.nextAfterId");
+        } while (afterId != null);
+
+        Assertions.assertEquals(total, seen.size());
+        Assertions.assertEquals(seen.stream().sorted().toList(), seen);
+    }
+
+    @Test
+    public void getAllMovies_WithInvalidLimit_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/all").param("limit", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void getAllMovies_WithStream_ShouldWriteTheCatalogAsJsonArray() throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/movies/all").param("stream", "true"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.title == 'The Godfather')]").exists());
+    }
+
+    @Test
+    public void addMovie_ShouldReturnConflict_WhenTitleDiffersOnlyInCaseAndSpacing() throws Exception {
+        // "The Godfather" is in data.sql
+        Movie movie = new Movie("  the   GODFATHER ", "Crime", 175, 9.2, 1972);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void searchMovies_ShouldFindNewMoviesAndTolerateTypos() throws Exception {
+        Movie movie = new Movie("The Godfather Part II", "Crime", 202, 9.0, 1974);
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "the godfa"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].title").value("The Godfather"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].title").value("The Godfather Part II"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "pulp fictoin").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].title").value("Pulp Fiction"));
+    }
+
+    @Test
+    public void searchMovies_WithBlankQuery_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", " "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void filterMovies_ShouldReturnMatchesWithFacetCounts() throws Exception {
+        // data.sql has two crime movies, both from before 2000
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/filter")
+                        .param("genre", "crime")
+                        .param("maxYear", "1999")
+                        .param("minRating", "8.9"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.movies[?(@.title == 'Pulp Fiction')]").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.genres.Crime").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.years['1972']").value(1));
+    }
+
+    @Test
+    public void filterMovies_ShouldSeeNewlyAddedMovies() throws Exception {
+        Movie movie = new Movie("Casino", "Crime", 178, 8.2, 1995);
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/filter").param("genre", "Crime").param("minYear", "1995"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.movies[0].title").value("Casino"));
+    }
+
+    @Test
+    public void filterMovies_WithInvertedYearRange_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/filter").param("minYear", "2000").param("maxYear", "1990"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
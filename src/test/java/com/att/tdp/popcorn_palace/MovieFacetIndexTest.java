@@ -0,0 +1,116 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieCatalog;
+import com.att.tdp.popcorn_palace.models.MovieFilterResult;
+import com.att.tdp.popcorn_palace.services.MovieFacetIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieFacetIndexTest {
+
+    private final MovieFacetIndex movieFacetIndex = new MovieFacetIndex();
+
+    private final MovieCatalog catalog = catalog(1,
+            movie(4L, "Heat", "Crime", 8.3, 1995),
+            movie(1L, "The Godfather", "Crime", 9.2, 1972),
+            movie(2L, "The Dark Knight", "Action", 9.0, 2008),
+            movie(3L, "Pulp Fiction", "crime ", 8.9, 1994),
+            movie(5L, "Speed", "Action", 7.2, 1994));
+
+    @Test
+    void filter_WithoutFilters_ShouldReturnEveryMovieInIdOrder() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, null, null, null, null, 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(result));
+        assertEquals(5, result.getTotal());
+        assertEquals(Map.of("Action", 2, "Crime", 3), result.getGenres());
+        assertEquals(List.of(1972, 1994, 1995, 2008), List.copyOf(result.getYears().keySet()));
+    }
+
+    @Test
+    void filter_ShouldIntersectGenreYearAndRating() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, "CRIME", 1990, 1999, 8.5, 10);
+
+        // Assert
+        assertEquals(List.of(3L), ids(result));
+        assertEquals(1, result.getTotal());
+    }
+
+    @Test
+    void filter_ShouldCountEachFacetUnderTheOtherFilters() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, "Action", 1990, 2000, null, 10);
+
+        // Assert
+        assertEquals(List.of(5L), ids(result));
+        // Genres ignore the genre filter, years ignore the year range
+        assertEquals(Map.of("Action", 1, "Crime", 2), result.getGenres());
+        assertEquals(Map.of(1994, 1, 2008, 1), result.getYears());
+    }
+
+    @Test
+    void filter_ShouldTreatMinimumRatingAsInclusive() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, null, null, null, 9.0, 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(result));
+    }
+
+    @Test
+    void filter_ShouldCutMoviesToLimitButCountAllMatches() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, "crime", null, null, null, 2);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), ids(result));
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void filter_WithUnknownGenre_ShouldMatchNothing() {
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(catalog, "Western", null, null, null, 10);
+
+        // Assert
+        assertTrue(result.getMovies().isEmpty());
+        assertEquals(0, result.getTotal());
+        assertTrue(result.getYears().isEmpty());
+    }
+
+    @Test
+    void filter_ShouldRebuildForANewCatalogSnapshot() {
+        // Arrange
+        movieFacetIndex.filter(catalog, null, null, null, null, 10);
+        MovieCatalog changed = catalog(2, movie(6L, "Alien", "Horror", 8.5, 1979));
+
+        // Act
+        MovieFilterResult result = movieFacetIndex.filter(changed, null, null, null, null, 10);
+
+        // Assert
+        assertEquals(List.of(6L), ids(result));
+        assertEquals(Map.of("Horror", 1), result.getGenres());
+    }
+
+    private static MovieCatalog catalog(long version, Movie... movies) {
+        return new MovieCatalog(version, "\"test-" + version + "\"", List.of(movies), new byte[0]);
+    }
+
+    private static Movie movie(Long id, String title, String genre, double rating, int releaseYear) {
+        Movie movie = new Movie(title, genre, 120, rating, releaseYear);
+        movie.setId(id);
+        return movie;
+    }
+
+    private static List<Long> ids(MovieFilterResult result) {
+        return result.getMovies().stream().map(Movie::getId).toList();
+    }
+}
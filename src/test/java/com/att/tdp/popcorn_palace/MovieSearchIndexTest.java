@@ -0,0 +1,129 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.repositories.MovieStreamReader;
+import com.att.tdp.popcorn_palace.services.MovieSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieSearchIndexTest {
+
+    @Mock
+    private MovieStreamReader movieStreamReader;
+
+    @InjectMocks
+    private MovieSearchIndex movieSearchIndex;
+
+    private final List<Movie> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(movie(1L, "The Godfather"));
+        catalog.add(movie(2L, "The Godfather Part II"));
+        catalog.add(movie(3L, "Gods and Monsters"));
+        catalog.add(movie(4L, "The Dark Knight"));
+        catalog.add(movie(5L, "Heat"));
+        lenient().doAnswer(invocation -> {
+            Consumer<Movie> consumer = invocation.getArgument(0);
+            catalog.forEach(consumer);
+            return null;
+        }).when(movieStreamReader).forEach(any());
+    }
+
+    @Test
+    void search_ShouldRankTitlesStartingWithTheQueryFirst() {
+        // Act
+        List<Movie> results = movieSearchIndex.search("the god", 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(results).subList(0, 2));
+        verify(movieStreamReader, times(1)).forEach(any());
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesOfLaterWords() {
+        // Act & Assert
+        assertEquals(List.of(4L), ids(movieSearchIndex.search("kni", 10)));
+        assertEquals(List.of(3L), ids(movieSearchIndex.search("monst", 10)));
+    }
+
+    @Test
+    void search_ShouldTolerateTypos() {
+        // Act
+        List<Movie> results = movieSearchIndex.search("godfater", 10);
+
+        // Assert
+        assertFalse(results.isEmpty());
+        assertTrue(ids(results).containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    void search_ShouldReturnAtMostLimitMovies() {
+        // Act
+        List<Movie> results = movieSearchIndex.search("the", 1);
+
+        // Assert
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void search_WithBlankQuery_ShouldReturnNothingWithoutLoading() {
+        // Act
+        List<Movie> results = movieSearchIndex.search("   ", 10);
+
+        // Assert
+        assertTrue(results.isEmpty());
+        verify(movieStreamReader, never()).forEach(any());
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepTheIndexInSyncWithWrites() {
+        // Act
+        movieSearchIndex.put(movie(6L, "Heathers"));
+        movieSearchIndex.put(movie(5L, "Heat Wave"));
+        movieSearchIndex.remove(1L);
+
+        // Assert
+        assertEquals(List.of(5L, 6L), ids(movieSearchIndex.search("heat", 10)).stream().sorted().toList());
+        assertEquals("Heat Wave", movieSearchIndex.search("heat w", 10).get(0).getTitle());
+        assertEquals(List.of(2L), ids(movieSearchIndex.search("the godfather", 10)));
+    }
+
+    @Test
+    void reset_ShouldReloadFromTheDatabase() {
+        // Arrange
+        movieSearchIndex.search("heat", 10);
+        catalog.add(movie(6L, "Heathers"));
+
+        // Act
+        movieSearchIndex.reset();
+        List<Movie> results = movieSearchIndex.search("heat", 10);
+
+        // Assert
+        assertEquals(List.of(5L, 6L), ids(results).stream().sorted().toList());
+        verify(movieStreamReader, times(2)).forEach(any());
+    }
+
+    private static Movie movie(Long id, String title) {
+        Movie movie = new Movie(title, "Drama", 120, 8.0, 2000);
+        movie.setId(id);
+        return movie;
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getId).toList();
+    }
+}
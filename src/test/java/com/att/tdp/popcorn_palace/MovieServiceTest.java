@@ -4,23 +4,41 @@ import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceAlreadyExistsException;
 import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
 import com.att.tdp.popcorn_palace.models.Movie;
+import com.att.tdp.popcorn_palace.models.MovieCatalog;
+import com.att.tdp.popcorn_palace.models.MoviePage;
+import com.att.tdp.popcorn_palace.models.Showtime;
 import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import com.att.tdp.popcorn_palace.repositories.MovieStreamReader;
 import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.MovieFacetIndex;
+import com.att.tdp.popcorn_palace.services.MovieSearchIndex;
 import com.att.tdp.popcorn_palace.services.MovieService;
+import com.att.tdp.popcorn_palace.services.MovieShowtimeCache;
+import com.att.tdp.popcorn_palace.services.MovieTitleIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +50,24 @@ public class MovieServiceTest {
     @Mock
     private ShowtimeRepository showtimeRepository;
 
+    @Mock
+    private MovieShowtimeCache movieShowtimeCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private MovieStreamReader movieStreamReader;
+
+    @Mock
+    private MovieTitleIndex movieTitleIndex;
+
+    @Mock
+    private MovieSearchIndex movieSearchIndex;
+
+    @Mock
+    private MovieFacetIndex movieFacetIndex;
+
     @InjectMocks
     private MovieService movieService;
 
@@ -65,7 +101,7 @@ public class MovieServiceTest {
     @Test
     void addMovie_WithValidMovie_ShouldSaveAndReturnMovie() {
         // Arrange
-        when(movieRepository.existsByTitle(anyString())).thenReturn(false);
+        when(movieTitleIndex.lookup(anyString())).thenReturn(null);
         when(movieRepository.save(any(Movie.class))).thenReturn(testMovie);
 
         // Act
@@ -73,14 +109,16 @@ public class MovieServiceTest {
 
         // Assert
         assertEquals(testMovie, result);
-        verify(movieRepository).existsByTitle(testMovie.getTitle());
+        verify(movieTitleIndex).lookup(testMovie.getTitle());
         verify(movieRepository).save(testMovie);
+        verify(movieTitleIndex).put(testMovie.getTitle(), 1L);
+        verify(movieSearchIndex).put(testMovie);
     }
 
     @Test
     void addMovie_WithExistingTitle_ShouldThrowResourceAlreadyExistsException() {
         // Arrange
-        when(movieRepository.existsByTitle(anyString())).thenReturn(true);
+        when(movieTitleIndex.lookup(anyString())).thenReturn(7L);
 
         // Act & Assert
         ResourceAlreadyExistsException exception = assertThrows(
@@ -89,7 +127,7 @@ public class MovieServiceTest {
         );
         
         assertTrue(exception.getMessage().contains(testMovie.getTitle()));
-        verify(movieRepository).existsByTitle(testMovie.getTitle());
+        verify(movieTitleIndex).lookup(testMovie.getTitle());
         verify(movieRepository, never()).save(any(Movie.class));
     }
 
@@ -110,7 +148,7 @@ public class MovieServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("title"));
-        verify(movieRepository, never()).existsByTitle(anyString());
+        verify(movieTitleIndex, never()).lookup(anyString());
         verify(movieRepository, never()).save(any(Movie.class));
     }
 
@@ -124,26 +162,25 @@ public class MovieServiceTest {
         updatedMovie.setRating(7.5);
         updatedMovie.setReleaseYear(2024);
 
-        when(movieRepository.findByTitle("Test Movie")).thenReturn(Optional.of(testMovie));
+        when(movieTitleIndex.lookup("Test Movie")).thenReturn(1L);
+        when(movieTitleIndex.lookup("Updated Title")).thenReturn(null);
+        when(movieRepository.updateMovie(1L, "Updated Title", "updated title", "Comedy", 90, 7.5, 2024)).thenReturn(1);
         
         // Act
         movieService.updateMovie("Test Movie", updatedMovie);
 
         // Assert
-        assertEquals("Updated Title", testMovie.getTitle());
-        assertEquals("Comedy", testMovie.getGenre());
-        assertEquals(90, testMovie.getDuration());
-        assertEquals(7.5, testMovie.getRating());
-        assertEquals(2024, testMovie.getReleaseYear());
-        
-        verify(movieRepository).findByTitle("Test Movie");
-        verify(movieRepository).save(testMovie);
+        verify(movieRepository).updateMovie(1L, "Updated Title", "updated title", "Comedy", 90, 7.5, 2024);
+        verify(movieRepository, never()).findById(anyLong());
+        verify(movieTitleIndex).remove("Test Movie", 1L);
+        verify(movieTitleIndex).put("Updated Title", 1L);
+        verify(movieSearchIndex).put(argThat(movie -> movie.getId() == 1L && movie.getTitle().equals("Updated Title")));
     }
 
     @Test
     void updateMovie_WithNonExistentTitle_ShouldThrowResourceNotFoundException() {
         // Arrange
-        when(movieRepository.findByTitle(anyString())).thenReturn(Optional.empty());
+        when(movieTitleIndex.lookup(anyString())).thenReturn(null);
 
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(
@@ -152,30 +189,33 @@ public class MovieServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Non-existent Movie"));
-        verify(movieRepository).findByTitle("Non-existent Movie");
-        verify(movieRepository, never()).save(any(Movie.class));
+        verify(movieTitleIndex).lookup("Non-existent Movie");
+        verify(movieRepository, never()).updateMovie(anyLong(), anyString(), anyString(), anyString(), anyInt(), anyDouble(), anyInt());
     }
 
     @Test
     void deleteMovie_WithExistingTitle_ShouldDeleteMovie() {
         // Arrange
-        when(movieRepository.findByTitle("Test Movie")).thenReturn(Optional.of(testMovie));
+        when(movieTitleIndex.lookup("Test Movie")).thenReturn(1L);
         when(showtimeRepository.existsByMovieId(1L)).thenReturn(false);
+        when(movieRepository.deleteMovieById(1L)).thenReturn(1);
 
         // Act
         boolean result = movieService.deleteMovie("Test Movie");
 
         // Assert
         assertTrue(result);
-        verify(movieRepository).findByTitle("Test Movie");
+        verify(movieTitleIndex).lookup("Test Movie");
         verify(showtimeRepository).existsByMovieId(1L);
-        verify(movieRepository).delete(testMovie);
+        verify(movieRepository).deleteMovieById(1L);
+        verify(movieTitleIndex).remove("Test Movie", 1L);
+        verify(movieSearchIndex).remove(1L);
     }
 
     @Test
     void deleteMovie_WithNonExistentTitle_ShouldThrowResourceNotFoundException() {
         // Arrange
-        when(movieRepository.findByTitle(anyString())).thenReturn(Optional.empty());
+        when(movieTitleIndex.lookup(anyString())).thenReturn(null);
 
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(
@@ -184,14 +224,14 @@ public class MovieServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Non-existent Movie"));
-        verify(movieRepository).findByTitle("Non-existent Movie");
-        verify(movieRepository, never()).delete(any(Movie.class));
+        verify(movieTitleIndex).lookup("Non-existent Movie");
+        verify(movieRepository, never()).deleteMovieById(anyLong());
     }
 
     @Test
     void deleteMovie_WithExistingShowtimes_ShouldThrowBusinessLogicException() {
         // Arrange
-        when(movieRepository.findByTitle("Test Movie")).thenReturn(Optional.of(testMovie));
+        when(movieTitleIndex.lookup("Test Movie")).thenReturn(1L);
         when(showtimeRepository.existsByMovieId(1L)).thenReturn(true);
 
         // Act & Assert
@@ -201,8 +241,142 @@ public class MovieServiceTest {
         );
         
         assertTrue(exception.getMessage().contains("Cannot delete movie with existing showtimes"));
-        verify(movieRepository).findByTitle("Test Movie");
+        verify(movieTitleIndex).lookup("Test Movie");
         verify(showtimeRepository).existsByMovieId(1L);
-        verify(movieRepository, never()).delete(any(Movie.class));
+        verify(movieRepository, never()).deleteMovieById(anyLong());
+    }
+
+    @Test
+    void getUpcomingShowtimes_ShouldServeCachedShowtimesWithoutMovieLookup() {
+        // Arrange
+        Instant start = Instant.now().plusSeconds(3600);
+        Showtime showtime = new Showtime(10.0, 1L, "Theater 1", start, start.plusSeconds(7200));
+        when(movieShowtimeCache.get(eq(1L), any(Instant.class))).thenReturn(List.of(showtime));
+
+        // Act
+        List<Showtime> showtimes = movieService.getUpcomingShowtimes(1L);
+
+        // Assert
+        assertEquals(List.of(showtime), showtimes);
+        verify(movieRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void getUpcomingShowtimes_WithNonExistentMovie_ShouldThrowResourceNotFoundException() {
+        // Arrange
+        when(movieShowtimeCache.get(eq(99L), any(Instant.class))).thenReturn(List.of());
+        when(movieRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> movieService.getUpcomingShowtimes(99L));
+    }
+
+    @Test
+    void getCatalog_ShouldReuseSnapshotUntilAMovieChanges() throws Exception {
+        // Arrange
+        when(movieRepository.findAll()).thenReturn(List.of(testMovie));
+        when(movieTitleIndex.lookup(anyString())).thenReturn(null);
+        when(movieRepository.save(any(Movie.class))).thenReturn(testMovie);
+
+        // Act
+        MovieCatalog first = movieService.getCatalog();
+        MovieCatalog second = movieService.getCatalog();
+        movieService.addMovie(new Movie("Another Movie", "Drama", 100, 7.0, 2020));
+        MovieCatalog third = movieService.getCatalog();
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertTrue(third.getVersion() > first.getVersion());
+        assertNotEquals(first.getETag(), third.getETag());
+        assertEquals("Test Movie", objectMapper.readTree(first.getJson()).get(0).get("title").asText());
+        verify(movieRepository, times(2)).findAll();
+    }
+
+    @Test
+    void getCatalog_WhenAMovieChangesDuringTheRebuild_ShouldNotServeTheStaleSnapshotAgain() {
+        // Arrange
+        when(movieTitleIndex.lookup(anyString())).thenReturn(null);
+        when(movieRepository.save(any(Movie.class))).thenReturn(testMovie);
+        // The first load reads the rows, then a writer commits before the snapshot is published
+        when(movieRepository.findAll())
+                .thenAnswer(invocation -> {
+                    movieService.addMovie(new Movie("Another Movie", "Drama", 100, 7.0, 2020));
+                    return List.of(testMovie);
+                })
+                .thenReturn(List.of(testMovie));
+
+        // Act
+        MovieCatalog stale = movieService.getCatalog();
+        MovieCatalog fresh = movieService.getCatalog();
+        MovieCatalog cached = movieService.getCatalog();
+
+        // Assert
+        assertNotSame(stale, fresh);
+        assertNotEquals(stale.getETag(), fresh.getETag());
+        assertSame(fresh, cached);
+        verify(movieRepository, times(2)).findAll();
+    }
+
+    @Test
+    void getMoviePage_ShouldReturnNextAfterIdOnlyWhenMoreMoviesFollow() {
+        // Arrange
+        Movie second = new Movie("Second", "Drama", 100, 7.0, 2020);
+        second.setId(2L);
+        Movie third = new Movie("Third", "Drama", 100, 7.0, 2020);
+        third.setId(3L);
+        when(movieRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(List.of(testMovie, second, third));
+        when(movieRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(List.of(third));
+
+        // Act
+        MoviePage first = movieService.getMoviePage(null, 2);
+        MoviePage last = movieService.getMoviePage(first.getNextAfterId(), 2);
+
+        // Assert
+        assertEquals(List.of(testMovie, second), first.getMovies());
+        assertEquals(2L, first.getNextAfterId());
+        assertEquals(List.of(third), last.getMovies());
+        assertNull(last.getNextAfterId());
+    }
+
+    @Test
+    void streamMovies_ShouldWriteEveryMovieAsOneJsonArray() throws Exception {
+        // Arrange
+        Movie second = new Movie("Second", "Drama", 100, 7.0, 2020);
+        second.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<Movie> consumer = invocation.getArgument(0);
+            consumer.accept(testMovie);
+            consumer.accept(second);
+            return null;
+        }).when(movieStreamReader).forEach(any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        movieService.streamMovies(out);
+
+        // Assert
+        JsonNode movies = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, movies.size());
+        assertEquals("Test Movie", movies.get(0).get("title").asText());
+        assertEquals(2, movies.get(1).get("id").asLong());
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void updateMovie_WithTitleOfAnotherMovie_ShouldThrowResourceAlreadyExistsException() {
+        // Arrange
+        Movie updatedMovie = new Movie("  the GODFATHER ", "Crime", 175, 9.2, 1972);
+        when(movieTitleIndex.lookup("Test Movie")).thenReturn(1L);
+        when(movieTitleIndex.lookup("  the GODFATHER ")).thenReturn(2L);
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> movieService.updateMovie("Test Movie", updatedMovie));
+        verify(movieRepository, never()).updateMovie(anyLong(), anyString(), anyString(), anyString(), anyInt(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void normalizeTitle_ShouldIgnoreCaseAndSpacing() {
+        assertEquals("the dark knight", Movie.normalizeTitle("  The   Dark\tKnight "));
     }
 }
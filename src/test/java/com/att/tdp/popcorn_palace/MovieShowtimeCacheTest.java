@@ -0,0 +1,77 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.MovieShowtimeCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieShowtimeCacheTest {
+
+    private static final Instant NOW = Instant.parse("2030-03-01T12:00:00Z");
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    private MovieShowtimeCache movieShowtimeCache;
+
+    @BeforeEach
+    void setUp() {
+        movieShowtimeCache = new MovieShowtimeCache(showtimeRepository, 100);
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndTrimStartedShowtimesAsTimeAdvances() {
+        // Arrange
+        when(showtimeRepository.findFutureShowtimesByMovieId(1L, NOW)).thenReturn(List.of(
+                showtime(1L, NOW.plusSeconds(3600)),
+                showtime(2L, NOW.plusSeconds(7200)),
+                showtime(3L, NOW.plusSeconds(10800))));
+
+        // Act
+        List<Showtime> first = movieShowtimeCache.get(1L, NOW);
+        List<Showtime> later = movieShowtimeCache.get(1L, NOW.plusSeconds(7200));
+        List<Showtime> last = movieShowtimeCache.get(1L, NOW.plusSeconds(7300));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), first.stream().map(Showtime::getId).toList());
+        // A showtime starting exactly now has started
+        assertEquals(List.of(3L), later.stream().map(Showtime::getId).toList());
+        assertSame(later, last);
+        verify(showtimeRepository, times(1)).findFutureShowtimesByMovieId(anyLong(), any(Instant.class));
+    }
+
+    @Test
+    void invalidate_ShouldReloadOnlyTheChangedMovie() {
+        // Arrange
+        when(showtimeRepository.findFutureShowtimesByMovieId(anyLong(), any(Instant.class))).thenReturn(List.of());
+        movieShowtimeCache.get(1L, NOW);
+        movieShowtimeCache.get(2L, NOW);
+
+        // Act
+        movieShowtimeCache.invalidate(1L);
+        movieShowtimeCache.get(1L, NOW);
+        movieShowtimeCache.get(2L, NOW);
+
+        // Assert
+        verify(showtimeRepository, times(2)).findFutureShowtimesByMovieId(eq(1L), any(Instant.class));
+        verify(showtimeRepository, times(1)).findFutureShowtimesByMovieId(eq(2L), any(Instant.class));
+    }
+
+    private static Showtime showtime(Long id, Instant start) {
+        Showtime showtime = new Showtime(10.0, 1L, "Theater 1", start, start.plusSeconds(3000));
+        showtime.setId(id);
+        return showtime;
+    }
+}
@@ -0,0 +1,66 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.MovieTitle;
+import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import com.att.tdp.popcorn_palace.services.MovieTitleIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieTitleIndexTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @InjectMocks
+    private MovieTitleIndex movieTitleIndex;
+
+    @Test
+    void lookup_ShouldLoadOnceAndMatchNormalizedTitles() {
+        // Arrange
+        when(movieRepository.findAllTitles()).thenReturn(List.of(new MovieTitle(1L, "the godfather")));
+
+        // Act & Assert
+        assertEquals(1L, movieTitleIndex.lookup("The Godfather"));
+        assertEquals(1L, movieTitleIndex.lookup("  THE   godfather "));
+        assertNull(movieTitleIndex.lookup("The Godfather Part II"));
+        verify(movieRepository, times(1)).findAllTitles();
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepTheIndexInSyncWithWrites() {
+        // Arrange
+        when(movieRepository.findAllTitles()).thenReturn(List.of(new MovieTitle(1L, "the godfather")));
+
+        // Act
+        movieTitleIndex.put("Heat", 2L);
+        movieTitleIndex.remove("The Godfather", 3L);
+        movieTitleIndex.remove("The Godfather", 1L);
+
+        // Assert
+        assertEquals(2L, movieTitleIndex.lookup("heat"));
+        assertNull(movieTitleIndex.lookup("The Godfather"));
+    }
+
+    @Test
+    void reset_ShouldReloadFromTheDatabase() {
+        // Arrange
+        when(movieRepository.findAllTitles()).thenReturn(List.of()).thenReturn(List.of(new MovieTitle(5L, "heat")));
+        assertNull(movieTitleIndex.lookup("Heat"));
+
+        // Act
+        movieTitleIndex.reset();
+
+        // Assert
+        assertEquals(5L, movieTitleIndex.lookup("Heat"));
+        verify(movieRepository, times(2)).findAllTitles();
+    }
+}
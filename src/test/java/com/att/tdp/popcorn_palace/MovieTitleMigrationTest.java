@@ -0,0 +1,62 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.repositories.MovieTitleMigration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieTitleMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private MovieTitleMigration movieTitleMigration;
+
+    @Test
+    void afterPropertiesSet_WithClashingTitles_ShouldFailStartup() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                Map.of("id", 1L, "title", "Heat"),
+                Map.of("id", 2L, "title", "HEAT")));
+        when(jdbcTemplate.update(anyString(), eq("heat"), eq(1L))).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq("heat"), eq(2L)))
+                .thenThrow(new DataIntegrityViolationException("duplicate normalized title"));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> movieTitleMigration.afterPropertiesSet());
+        assertTrue(exception.getMessage().contains("2 'HEAT'"));
+        verify(jdbcTemplate, never()).execute(ArgumentMatchers.<ConnectionCallback<String>>any());
+    }
+
+    @Test
+    void afterPropertiesSet_WithoutClashes_ShouldFillEveryNormalizedTitle() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(Map.of("id", 1L, "title", "  The  Matrix ")));
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("H2");
+
+        // Act
+        movieTitleMigration.afterPropertiesSet();
+
+        // Assert
+        verify(jdbcTemplate).update(anyString(), eq("the matrix"), eq(1L));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
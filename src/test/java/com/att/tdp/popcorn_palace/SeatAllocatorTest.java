@@ -0,0 +1,135 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.repositories.BookingRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.SeatAllocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SeatAllocatorTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    @InjectMocks
+    private SeatAllocator seatAllocator;
+
+    @Test
+    void tryClaim_ShouldLoadBookedSeatsOnce() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of(5, 6, 5000));
+
+        // Act & Assert
+        assertFalse(seatAllocator.tryClaim(1L, 5));
+        assertFalse(seatAllocator.tryClaim(1L, 5000));
+        assertTrue(seatAllocator.tryClaim(1L, 7));
+        assertFalse(seatAllocator.tryClaim(1L, 7));
+        verify(showtimeRepository, times(1)).existsById(1L);
+        verify(bookingRepository, times(1)).findSeatNumbersByShowtimeId(1L);
+    }
+
+    @Test
+    void tryClaim_WithNonExistentShowtime_ShouldThrowResourceNotFoundException() {
+        // Arrange
+        when(showtimeRepository.existsById(9L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> seatAllocator.tryClaim(9L, 1));
+        verify(bookingRepository, never()).findSeatNumbersByShowtimeId(anyLong());
+    }
+
+    @Test
+    void release_ShouldMakeSeatAvailableAgain() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        assertTrue(seatAllocator.tryClaim(1L, 64));
+
+        // Act
+        seatAllocator.release(1L, 64);
+
+        // Assert
+        assertTrue(seatAllocator.tryClaim(1L, 64));
+        assertTrue(seatAllocator.tryClaim(1L, 63));
+        assertTrue(seatAllocator.tryClaim(1L, 65));
+    }
+
+    @Test
+    void evict_ShouldReloadSeatMapOnNextClaim() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        seatAllocator.tryClaim(1L, 3);
+
+        // Act
+        seatAllocator.evict(1L);
+        seatAllocator.tryClaim(1L, 3);
+
+        // Assert
+        verify(bookingRepository, times(2)).findSeatNumbersByShowtimeId(1L);
+    }
+
+    @Test
+    void tryClaim_WithConcurrentCallers_ShouldGrantSeatExactlyOnce() throws Exception {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of());
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (seatAllocator.tryClaim(1L, 42)) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1, winners.get());
+    }
+
+    @Test
+    void occupiedRanges_ShouldRunLengthEncodeTakenSeatsAcrossPages() {
+        // Arrange
+        when(showtimeRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findSeatNumbersByShowtimeId(1L)).thenReturn(List.of(5, 6, 7, 63, 64, 9000, 4095, 4096));
+
+        // Act
+        List<int[]> ranges = seatAllocator.occupiedRanges(1L);
+
+        // Assert
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new int[]{5, 7}, ranges.get(0));
+        assertArrayEquals(new int[]{63, 64}, ranges.get(1));
+        assertArrayEquals(new int[]{4095, 4096}, ranges.get(2));
+        assertArrayEquals(new int[]{9000, 9000}, ranges.get(3));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.OperationNotAllowedException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.services.HashedWheelTimer;
+import com.att.tdp.popcorn_palace.services.SeatAllocator;
+import com.att.tdp.popcorn_palace.services.SeatHoldRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SeatHoldRegistryTest {
+
+    @Mock
+    private SeatAllocator seatAllocator;
+
+    private SeatHoldRegistry seatHoldRegistry;
+
+    @BeforeEach
+    void setUp() {
+        seatHoldRegistry = new SeatHoldRegistry(seatAllocator, Duration.ofMillis(50), Duration.ofMillis(10), 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatHoldRegistry.shutdown();
+    }
+
+    @Test
+    void hold_WhenNotConfirmed_ShouldReleaseSeatsAfterTtl() {
+        // Act
+        UUID userId = UUID.randomUUID();
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.hold(1L, userId, List.of(3, 4));
+
+        // Assert
+        verify(seatAllocator, timeout(2000)).release(1L, 3);
+        verify(seatAllocator, timeout(2000)).release(1L, 4);
+        assertEquals(0, seatHoldRegistry.activeHolds());
+        assertThrows(ResourceNotFoundException.class, () -> seatHoldRegistry.take(hold.holdId(), userId));
+    }
+
+    @Test
+    void take_ShouldCancelExpiry() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.hold(1L, userId, List.of(3));
+
+        // Act
+        SeatHoldRegistry.SeatHold taken = seatHoldRegistry.take(hold.holdId(), userId);
+        Thread.sleep(200);
+
+        // Assert
+        assertEquals(List.of(3), taken.seatNumbers());
+        verify(seatAllocator, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    void take_ByAnotherUser_ShouldBeRejectedAndKeepTheHold() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        SeatHoldRegistry.SeatHold hold = seatHoldRegistry.hold(1L, userId, List.of(3));
+
+        // Act & Assert
+        assertThrows(OperationNotAllowedException.class, () -> seatHoldRegistry.take(hold.holdId(), UUID.randomUUID()));
+        assertEquals(1, seatHoldRegistry.activeHolds());
+        assertEquals(hold.holdId(), seatHoldRegistry.take(hold.holdId(), userId).holdId());
+    }
+
+    @Test
+    void timer_ShouldRunTimeoutsSpanningSeveralRoundsAndSkipCancelledOnes() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-wheel", Duration.ofMillis(5), 4);
+        try {
+            CountDownLatch fired = new CountDownLatch(2);
+            AtomicInteger cancelledRuns = new AtomicInteger();
+
+            timer.schedule(fired::countDown, Duration.ofMillis(10));
+            timer.schedule(fired::countDown, Duration.ofMillis(80)); // several wheel rounds away
+            HashedWheelTimer.Timeout cancelled = timer.schedule(cancelledRuns::incrementAndGet, Duration.ofMillis(10));
+            assertTrue(cancelled.cancel());
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(0, cancelledRuns.get());
+        } finally {
+            timer.stop();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.services.ShowtimeCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShowtimeCacheTest {
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ShowtimeCache showtimeCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        showtimeCache = new ShowtimeCache(showtimeRepository, meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void get_ShouldLoadOnceServeDetachedCopyAndCountHitsAndMisses() {
+        // Arrange
+        Showtime showtime = showtime(1L);
+        when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime));
+
+        // Act
+        Showtime first = showtimeCache.get(1L);
+        Showtime second = showtimeCache.get(1L);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(showtime, first);
+        assertEquals(1L, first.getId());
+        verify(showtimeRepository, times(1)).findById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "showtimes").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "showtimes").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void get_WithMissingShowtime_ShouldNotCacheTheMiss() {
+        // Arrange
+        when(showtimeRepository.findById(2L)).thenReturn(Optional.empty()).thenReturn(Optional.of(showtime(2L)));
+
+        // Act & Assert
+        assertNull(showtimeCache.get(2L));
+        assertNotNull(showtimeCache.get(2L));
+        verify(showtimeRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void invalidate_ShouldReloadTheShowtime() {
+        // Arrange
+        when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime(1L)));
+        Showtime before = showtimeCache.get(1L);
+
+        // Act
+        showtimeCache.invalidate(1L);
+        Showtime after = showtimeCache.get(1L);
+
+        // Assert
+        assertNotSame(before, after);
+        verify(showtimeRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void get_WithConcurrentMisses_ShouldLoadOnce() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(showtimeRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(showtime(1L));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // Act
+            List<Future<Showtime>> results = new ArrayList<>();
+            results.add(executor.submit(() -> showtimeCache.get(1L)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> showtimeCache.get(1L)));
+            }
+            release.countDown();
+
+            // Assert
+            Showtime first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Showtime> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(showtimeRepository, times(1)).findById(1L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Showtime showtime(Long id) {
+        Instant start = Instant.parse("2030-03-01T12:00:00Z");
+        Showtime showtime = new Showtime(10.0, 1L, "Theater 1", start, start.plusSeconds(7200));
+        showtime.setId(id);
+        return showtime;
+    }
+}
@@ -2,22 +2,34 @@ package com.att.tdp.popcorn_palace;
 
 import com.att.tdp.popcorn_palace.models.Movie;
 import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -31,6 +43,15 @@ public class ShowtimeControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TheaterDictionary theaterDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Long movieId;
     private Instant futureTime;
 
@@ -287,4 +308,357 @@ public class ShowtimeControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(showtime2)))
                 .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void addShowtime_ShouldReturnUnprocessableEntity_WhenDatabaseConstraintCatchesOverlap() throws Exception {
+        // Warm the in-memory schedule of the theater
+        Showtime showtime1 = new Showtime(12.99, movieId, "Theater Constraint Test", futureTime, futureTime.plus(2, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(showtime1)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // A showtime written behind the index's back, e.g. by another instance
+        Instant otherStart = futureTime.plus(4, ChronoUnit.HOURS);
+        jdbcTemplate.update("INSERT INTO showtimes (movie_id, theater_id, price, start_time, end_time) VALUES (?, ?, ?, ?, ?)",
+                movieId, theaterDictionary.register("Theater Constraint Test"), 12.99,
+                otherStart.atOffset(ZoneOffset.UTC), otherStart.plus(2, ChronoUnit.HOURS).atOffset(ZoneOffset.UTC));
+
+        Showtime showtime2 = new Showtime(14.99, movieId, "Theater Constraint Test",
+                futureTime.plus(5, ChronoUnit.HOURS), futureTime.plus(7, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(showtime2)))
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void showtimesTable_ShouldRejectOverlappingRows() {
+        Instant start = futureTime.plus(10, ChronoUnit.DAYS);
+        String insert = "INSERT INTO showtimes (movie_id, theater_id, price, start_time, end_time) VALUES (?, ?, ?, ?, ?)";
+        int theaterId = theaterDictionary.register("Theater Trigger Test");
+        jdbcTemplate.update(insert, movieId, theaterId, 12.99,
+                start.atOffset(ZoneOffset.UTC), start.plus(2, ChronoUnit.HOURS).atOffset(ZoneOffset.UTC));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(insert, movieId,
+                theaterId, 12.99,
+                start.plus(2, ChronoUnit.HOURS).atOffset(ZoneOffset.UTC), start.plus(4, ChronoUnit.HOURS).atOffset(ZoneOffset.UTC)));
+    }
+
+    @Test
+    public void getSeatAvailability_ShouldReturnOccupiedRanges() throws Exception {
+        // Seats 5 and 6 of showtime 1 are booked in data.sql
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/{showtimeId}/seats", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimeId").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.occupiedRanges[0][0]").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.occupiedRanges[0][1]").value(6));
+    }
+
+    @Test
+    public void getSeatAvailability_ShouldReturnNotFound_WhenShowtimeDoesNotExist() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/9999/seats"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void importShowtimes_ShouldReportEachRow_WhenBodyIsNdjson() throws Exception {
+        Instant start = futureTime.plus(20, ChronoUnit.DAYS);
+        String body = String.join("\n",
+                objectMapper.writeValueAsString(new Showtime(12.99, movieId, "Theater Import Test", start, start.plus(2, ChronoUnit.HOURS))),
+                objectMapper.writeValueAsString(new Showtime(12.99, movieId, "Theater Import Test",
+                        start.plus(1, ChronoUnit.HOURS), start.plus(3, ChronoUnit.HOURS))),
+                objectMapper.writeValueAsString(new Showtime(12.99, 9999L, "Theater Import Test",
+                        start.plus(4, ChronoUnit.HOURS), start.plus(6, ChronoUnit.HOURS))));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/showtime/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows[0].status").value("ACCEPTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows[1].status").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows[2].reason").value("Movie with ID 9999 not found"))
+                .andReturn();
+
+        // The imported showtime is stored and blocks overlapping single showtimes
+        Long showtimeId = objectMapper.readTree(result.getResponse().getContentAsString()).at("/rows/0/showtimeId").asLong();
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/{showtimeId}", showtimeId))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.theater").value("Theater Import Test"));
+
+        Showtime overlapping = new Showtime(14.99, movieId, "Theater Import Test",
+                start.plus(1, ChronoUnit.HOURS), start.plus(3, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overlapping)))
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void importShowtimes_ShouldImportCsv() throws Exception {
+        Instant start = futureTime.plus(21, ChronoUnit.DAYS);
+        String body = "movieId,theater,price,startTime,endTime\n" +
+                movieId + ",Theater Import CSV,9.5," + start + "," + start.plus(2, ChronoUnit.HOURS) + "\n" +
+                movieId + ",Theater Import CSV,9.5," + start.plus(3, ChronoUnit.HOURS) + "," + start.plus(5, ChronoUnit.HOURS) + "\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime/import")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows[1].line").value(3));
+
+        Integer stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM showtimes WHERE theater_id = ?", Integer.class,
+                theaterDictionary.lookup("Theater Import CSV"));
+        Assertions.assertEquals(2, stored);
+    }
+
+    @Test
+    public void importShowtimes_ShouldReturnBadRequest_WhenCsvHeaderIsMissing() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime/import")
+                        .contentType("text/csv")
+                        .content(movieId + ",Theater Import CSV,9.5," + futureTime + "," + futureTime.plus(2, ChronoUnit.HOURS)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void searchShowtimes_ShouldWalkAllPagesInStartTimeAndIdOrder() throws Exception {
+        // Whole seconds, since the database keeps microseconds and the window must include the first showtime
+        Instant start = futureTime.plus(200, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        String insert = "INSERT INTO showtimes (movie_id, theater_id, price, start_time, end_time) VALUES (?, ?, ?, ?, ?)";
+        // Two theaters with showtimes at the same times, so ties are broken by ID
+        for (int hour = 0; hour < 9; hour += 3) {
+            for (String theater : new String[]{"Theater Search A", "Theater Search B"}) {
+                Instant showtimeStart = start.plus(hour, ChronoUnit.HOURS);
+                jdbcTemplate.update(insert, movieId, theaterDictionary.register(theater), 10.0,
+                        showtimeStart.atOffset(ZoneOffset.UTC), showtimeStart.plus(2, ChronoUnit.HOURS).atOffset(ZoneOffset.UTC));
+            }
+        }
+
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM showtimes WHERE start_time >= ? ORDER BY start_time, id", Long.class, start.atOffset(ZoneOffset.UTC));
+        Assertions.assertEquals(6, expected.size());
+        // Pages of 4 end between two start times, pages of 3 between the two showtimes of one start time
+        for (int limit : new int[]{4, 3}) {
+            List<Long> seen = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/showtime/search")
+                        .param("from", start.toString())
+                        .param("to", start.plus(1, ChronoUnit.DAYS).toString())
+                        .param("limit", String.valueOf(limit));
+                if (cursor != null) {
+                    request.param("cursor", cursor);
+                }
+                MvcResult result = mockMvc.perform(request)
+                        .andExpect(MockMvcResultMatchers.status().isOk())
+                        .andReturn();
+                JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+                page.get("showtimes").forEach(showtime -> seen.add(showtime.get("id").asLong()));
+                cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+                pages++;
+            } while (cursor != null);
+
+            Assertions.assertEquals(2, pages);
+            Assertions.assertEquals(expected, seen);
+        }
+    }
+
+    @Test
+    public void searchShowtimes_ShouldFilterByTheaterAndMovie() throws Exception {
+        Instant start = futureTime.plus(210, ChronoUnit.DAYS);
+        Showtime showtime = new Showtime(12.99, movieId, "Theater Search Filter", start, start.plus(2, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(showtime)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/search")
+                        .param("theater", "Theater Search Filter")
+                        .param("movieId", movieId.toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes[0].theater").value("Theater Search Filter"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/search")
+                        .param("theater", "Theater Search Filter")
+                        .param("movieId", "9999"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes").isEmpty());
+    }
+
+    @Test
+    public void searchShowtimes_ShouldReturnBadRequest_WhenParametersAreInvalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/search").param("cursor", "not-a-cursor"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/search").param("limit", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/search")
+                        .param("from", futureTime.toString())
+                        .param("to", futureTime.minus(1, ChronoUnit.HOURS).toString()))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void getTheaterDaySchedule_ShouldReflectAddedAndDeletedShowtimes() throws Exception {
+        Instant start = futureTime.plus(220, ChronoUnit.DAYS);
+        String date = start.atOffset(ZoneOffset.UTC).toLocalDate().toString();
+        Instant dayStart = start.atOffset(ZoneOffset.UTC).toLocalDate().atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        // Warm the cache with the empty day
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/schedule")
+                        .param("theater", "Theater Schedule Test")
+                        .param("date", date))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes").isEmpty());
+
+        Showtime late = new Showtime(12.99, movieId, "Theater Schedule Test",
+                dayStart.plus(20, ChronoUnit.HOURS), dayStart.plus(22, ChronoUnit.HOURS));
+        Showtime early = new Showtime(12.99, movieId, "Theater Schedule Test",
+                dayStart.plus(10, ChronoUnit.HOURS), dayStart.plus(12, ChronoUnit.HOURS));
+        Long lateId = null;
+        for (Showtime showtime : List.of(late, early)) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(showtime)))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andReturn();
+            if (lateId == null) {
+                lateId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+            }
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/schedule")
+                        .param("theater", "Theater Schedule Test")
+                        .param("date", date))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.date").value(date))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes[0].startTime").value(early.getStartTime().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes[1].id").value(lateId));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/showtime/{showtimeId}", lateId))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/schedule")
+                        .param("theater", "Theater Schedule Test")
+                        .param("date", date))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.showtimes.length()").value(1));
+    }
+
+    @Test
+    public void getTheaterDaySchedule_ShouldReturnBadRequest_WhenDateIsInvalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/schedule")
+                        .param("theater", "Theater 1")
+                        .param("date", "14/02/2025"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void addRecurringShowtime_ShouldCreateEveryOccurrenceOnce() throws Exception {
+        String from = futureTime.plus(230, ChronoUnit.DAYS).atOffset(ZoneOffset.UTC).toLocalDate().toString();
+        String to = futureTime.plus(257, ChronoUnit.DAYS).atOffset(ZoneOffset.UTC).toLocalDate().toString();
+        String template = String.format("{\"movieId\": %d, \"theater\": \"Theater Recurring Test\", \"price\": 11.5, " +
+                "\"startDate\": \"%s\", \"endDate\": \"%s\", \"times\": [\"14:00\", \"17:00\", \"20:00\"], " +
+                "\"durationMinutes\": 150}", movieId, from, to);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime/recurring")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(template))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(84))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").exists());
+
+        Integer stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM showtimes WHERE theater_id = ?", Integer.class,
+                theaterDictionary.lookup("Theater Recurring Test"));
+        Assertions.assertEquals(84, stored);
+
+        // Repeating the template would double-book every slot
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime/recurring")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(template))
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void addRecurringShowtime_ShouldReturnBadRequest_WhenTemplateIsInvalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime/recurring")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"movieId\": 1, \"theater\": \"Theater 1\", \"price\": 11.5, \"startDate\": \"2030-01-10\", " +
+                                "\"endDate\": \"2030-01-01\", \"times\": [\"14:00\"], \"durationMinutes\": 150}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void findFreeSlots_ShouldReturnSlotsThatCanBeBooked() throws Exception {
+        Instant start = futureTime.plus(260, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        Showtime showtime = new Showtime(12.99, movieId, "Theater Free Slot Test",
+                start.plus(3, ChronoUnit.HOURS), start.plus(5, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(showtime)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/showtime/free-slots")
+                        .param("theater", "Theater Free Slot Test")
+                        .param("from", start.toString())
+                        .param("to", start.plus(8, ChronoUnit.HOURS).toString())
+                        .param("durationMinutes", "120"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].startTime").value(start.toString()))
+                .andReturn();
+
+        // The second slot starts right after the showtime and can be scheduled as is
+        JsonNode slot = objectMapper.readTree(result.getResponse().getContentAsString()).get(1);
+        Instant slotStart = Instant.parse(slot.get("startTime").asText());
+        Showtime fitting = new Showtime(12.99, movieId, "Theater Free Slot Test", slotStart, slotStart.plus(2, ChronoUnit.HOURS));
+        mockMvc.perform(MockMvcRequestBuilders.post("/showtime")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(fitting)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    public void findFreeSlots_ShouldReturnBadRequest_WhenDurationIsOutOfRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/free-slots")
+                        .param("theater", "Theater 1")
+                        .param("from", futureTime.toString())
+                        .param("to", futureTime.plus(1, ChronoUnit.DAYS).toString())
+                        .param("durationMinutes", "10"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/showtime/free-slots")
+                        .param("theater", "Theater 1")
+                        .param("durationMinutes", "120"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errorCode").value("MISSING_PARAMETER"));
+    }
+
+    @Test
+    public void theaterDictionary_ShouldForgetTheatersOfRolledBackTransactions() {
+        String theater = "Theater Rolled Back";
+        Assertions.assertNull(theaterDictionary.lookup(theater));
+
+        TransactionTemplate failingInsert = new TransactionTemplate(transactionManager);
+        failingInsert.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer created = failingInsert.execute(status -> {
+            // The new theater is visible to its own transaction, despite the cached miss
+            int id = theaterDictionary.register(theater);
+            Assertions.assertEquals(id, theaterDictionary.lookup(theater));
+            Assertions.assertEquals(theater, theaterDictionary.nameOf(id));
+            // As if the showtime insert that needed the theater had failed
+            status.setRollbackOnly();
+            return id;
+        });
+
+        Assertions.assertNotNull(created);
+        Assertions.assertNull(theaterDictionary.lookup(theater));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM theaters WHERE name = ?", Integer.class, theater));
+    }
+}
@@ -0,0 +1,334 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.exceptions.BusinessLogicException;
+import com.att.tdp.popcorn_palace.exceptions.InvalidResourceException;
+import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
+import com.att.tdp.popcorn_palace.models.RecurringShowtimeRequest;
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.ShowtimeImportReport;
+import com.att.tdp.popcorn_palace.models.ShowtimeImportResult;
+import com.att.tdp.popcorn_palace.models.ShowtimeInterval;
+import com.att.tdp.popcorn_palace.repositories.MovieRepository;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeBatchInserter;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.att.tdp.popcorn_palace.services.MovieShowtimeCache;
+import com.att.tdp.popcorn_palace.services.ShowtimeImportService;
+import com.att.tdp.popcorn_palace.services.TheaterDayScheduleCache;
+import com.att.tdp.popcorn_palace.services.TheaterScheduleIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShowtimeImportServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    @Mock
+    private ShowtimeBatchInserter showtimeBatchInserter;
+
+    @Mock
+    private TheaterDictionary theaterDictionary;
+
+    @Mock
+    private TheaterDayScheduleCache theaterDayScheduleCache;
+
+    @Mock
+    private MovieShowtimeCache movieShowtimeCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TheaterScheduleIndex theaterScheduleIndex;
+    private ShowtimeImportService showtimeImportService;
+    private Instant start;
+
+    @BeforeEach
+    void setUp() {
+        // Theaters get IDs in order of first use
+        List<String> theaters = new ArrayList<>();
+        lenient().when(theaterDictionary.lookup(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (!theaters.contains(name)) {
+                theaters.add(name);
+            }
+            return theaters.indexOf(name) + 1;
+        });
+        theaterScheduleIndex = new TheaterScheduleIndex(showtimeRepository, theaterDictionary);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        showtimeImportService = new ShowtimeImportService(movieRepository, showtimeBatchInserter, theaterScheduleIndex,
+                theaterDayScheduleCache, movieShowtimeCache, new TransactionTemplate(transactionManager), objectMapper, ZoneId.of("UTC"), 100);
+        start = Instant.now().plus(7, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void importShowtimes_ShouldRejectOverlapsWithExistingAndEarlierRows() throws Exception {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Hall 1")).thenReturn(List.of(
+                new ShowtimeInterval(50L, start.plus(10, ChronoUnit.HOURS), start.plus(12, ChronoUnit.HOURS))));
+        when(movieRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        assignIds();
+        String csv = String.join("\n",
+                "movieId,theater,price,startTime,endTime",
+                row(1L, "Hall 1", 4, 6),    // line 2: accepted
+                row(1L, "Hall 1", 0, 2),    // line 3: accepted, sorted before line 2
+                row(1L, "Hall 1", 5, 7),    // line 4: overlaps line 2
+                row(1L, "Hall 1", 9, 11),   // line 5: overlaps the existing showtime
+                row(1L, "Hall 1", 6, 8),    // line 6: touches line 2 at 6:00
+                row(1L, "Hall 1", 12, 14),  // line 7: touches the existing showtime at 12:00
+                row(1L, "Hall 1", 11, 13)); // line 8: starts inside the existing showtime
+
+        // Act
+        ShowtimeImportReport report = showtimeImportService.importShowtimes(stream(csv), ShowtimeImportService.Format.CSV);
+
+        // Assert
+        assertEquals(2, report.getAccepted());
+        assertEquals(5, report.getRejected());
+        List<ShowtimeImportResult> rows = report.getRows();
+        assertEquals(List.of(2, 3, 4, 5, 6, 7, 8), rows.stream().map(ShowtimeImportResult::getLine).toList());
+        assertEquals(ShowtimeImportResult.Status.ACCEPTED, rows.get(0).getStatus());
+        assertEquals(ShowtimeImportResult.Status.ACCEPTED, rows.get(1).getStatus());
+        assertTrue(rows.get(2).getReason().contains("line 2"));
+        assertTrue(rows.get(3).getReason().contains("existing showtime"));
+        assertTrue(rows.get(4).getReason().contains("line 2"));
+        assertTrue(rows.get(5).getReason().contains("existing showtime"));
+        assertTrue(rows.get(6).getReason().contains("existing showtime"));
+
+        // The accepted showtimes are written as one batch and join the in-memory schedule
+        verify(showtimeBatchInserter, times(1)).insertAll(anyList());
+        verify(showtimeRepository, times(1)).findIntervalsByTheater("Hall 1");
+        assertTrue(theaterScheduleIndex.overlaps("Hall 1", start.plus(1, ChronoUnit.HOURS), start.plus(3, ChronoUnit.HOURS), null));
+    }
+
+    @Test
+    void importShowtimes_ShouldResolveMoviesInOneQuery() throws Exception {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater(anyString())).thenReturn(List.of());
+        when(movieRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        assignIds();
+        String ndjson = String.join("\n",
+                json(1L, "Hall 1", 0, 2),
+                json(2L, "Hall 2", 0, 2),
+                json(3L, "Hall 3", 0, 2),
+                json(1L, "Hall 2", 3, 5));
+
+        // Act
+        ShowtimeImportReport report = showtimeImportService.importShowtimes(stream(ndjson), ShowtimeImportService.Format.NDJSON);
+
+        // Assert
+        assertEquals(3, report.getAccepted());
+        assertEquals("Movie with ID 3 not found", report.getRows().get(2).getReason());
+        verify(movieRepository, times(1)).findExistingIds(anyCollection());
+        verify(movieRepository, never()).existsById(any());
+    }
+
+    @Test
+    void importShowtimes_ShouldReportInvalidRowsWithoutFailingTheImport() throws Exception {
+        // Arrange
+        String ndjson = String.join("\n",
+                "{not json",
+                "",
+                json(1L, "", 0, 2),
+                json(1L, "Hall 1", 0, 0),
+                "{\"movieId\": 1, \"theater\": \"Hall 1\", \"price\": 10.0, \"startTime\": \"2000-01-01T10:00:00Z\", \"endTime\": \"2000-01-01T12:00:00Z\"}");
+
+        // Act
+        ShowtimeImportReport report = showtimeImportService.importShowtimes(stream(ndjson), ShowtimeImportService.Format.NDJSON);
+
+        // Assert
+        assertEquals(0, report.getAccepted());
+        assertEquals(List.of(1, 3, 4, 5), report.getRows().stream().map(ShowtimeImportResult::getLine).toList());
+        assertTrue(report.getRows().get(0).getReason().startsWith("Malformed JSON"));
+        assertTrue(report.getRows().get(1).getReason().contains("theater"));
+        assertTrue(report.getRows().get(2).getReason().contains("duration"));
+        assertTrue(report.getRows().get(3).getReason().contains("future"));
+        verifyNoInteractions(showtimeBatchInserter, showtimeRepository);
+    }
+
+    @Test
+    void importShowtimes_WithQuotedCsvFields_ShouldKeepCommasInTheater() throws Exception {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Hall 1, Balcony")).thenReturn(List.of());
+        when(movieRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        assignIds();
+        String csv = "theater,movieId,startTime,endTime,price\n\"Hall 1, Balcony\",1," +
+                start + "," + start.plus(2, ChronoUnit.HOURS) + ",12.5\n";
+
+        // Act
+        ShowtimeImportReport report = showtimeImportService.importShowtimes(stream(csv), ShowtimeImportService.Format.CSV);
+
+        // Assert
+        assertEquals(1, report.getAccepted());
+        ArgumentCaptor<List<Showtime>> captor = ArgumentCaptor.captor();
+        verify(showtimeBatchInserter).insertAll(captor.capture());
+        Showtime showtime = captor.getValue().get(0);
+        assertEquals("Hall 1, Balcony", showtime.getTheater());
+        assertEquals(12.5, showtime.getPrice());
+    }
+
+    @Test
+    void importShowtimes_WithoutCsvHeader_ShouldThrowInvalidResourceException() {
+        // Arrange
+        String csv = row(1L, "Hall 1", 0, 2);
+
+        // Act & Assert
+        assertThrows(InvalidResourceException.class,
+                () -> showtimeImportService.importShowtimes(stream(csv), ShowtimeImportService.Format.CSV));
+        verifyNoInteractions(showtimeBatchInserter);
+    }
+
+    @Test
+    void importShowtimes_WhenDatabaseCatchesOverlap_ShouldImportNothing() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Hall 1")).thenReturn(List.of());
+        when(movieRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        doThrow(new DataIntegrityViolationException("overlap", new SQLException("conflicting key value", "23P01")))
+                .when(showtimeBatchInserter).insertAll(anyList());
+        String ndjson = json(1L, "Hall 1", 0, 2);
+
+        // Act & Assert
+        assertThrows(BusinessLogicException.class,
+                () -> showtimeImportService.importShowtimes(stream(ndjson), ShowtimeImportService.Format.NDJSON));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void scheduleRecurring_ShouldExpandMatchingDaysAndTimes() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Hall 1")).thenReturn(List.of());
+        when(movieRepository.existsById(1L)).thenReturn(true);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        assignIds();
+        LocalDate monday = LocalDate.now(ZoneOffset.UTC).plusDays(7).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        RecurringShowtimeRequest request = recurring(monday, monday.plusDays(13), List.of(LocalTime.of(20, 0), LocalTime.of(14, 0), LocalTime.of(17, 0)));
+        request.setDaysOfWeek(Set.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+
+        // Act
+        List<Showtime> showtimes = showtimeImportService.scheduleRecurring(request);
+
+        // Assert
+        assertEquals(12, showtimes.size());
+        assertEquals(monday.plusDays(5).atTime(14, 0).toInstant(ZoneOffset.UTC), showtimes.get(0).getStartTime());
+        assertEquals(showtimes.get(0).getStartTime().plus(150, ChronoUnit.MINUTES), showtimes.get(0).getEndTime());
+        verify(movieRepository, times(1)).existsById(1L);
+        verify(showtimeBatchInserter, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    void scheduleRecurring_WithOneConflict_ShouldScheduleNothing() {
+        // Arrange
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        Instant existingStart = day.plusDays(1).atTime(16, 0).toInstant(ZoneOffset.UTC);
+        when(showtimeRepository.findIntervalsByTheater("Hall 1")).thenReturn(List.of(
+                new ShowtimeInterval(50L, existingStart, existingStart.plus(2, ChronoUnit.HOURS))));
+        when(movieRepository.existsById(1L)).thenReturn(true);
+        RecurringShowtimeRequest request = recurring(day, day.plusDays(2), List.of(LocalTime.of(14, 0), LocalTime.of(19, 0)));
+
+        // Act & Assert
+        BusinessLogicException exception = assertThrows(BusinessLogicException.class,
+                () -> showtimeImportService.scheduleRecurring(request));
+        assertTrue(exception.getMessage().startsWith("1 of 6 occurrences"));
+        assertTrue(exception.getMessage().contains("existing showtime"));
+        verifyNoInteractions(showtimeBatchInserter, transactionManager);
+    }
+
+    @Test
+    void scheduleRecurring_WithOverlappingTimes_ShouldThrowBusinessLogicException() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Hall 1")).thenReturn(List.of());
+        when(movieRepository.existsById(1L)).thenReturn(true);
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        RecurringShowtimeRequest request = recurring(day, day, List.of(LocalTime.of(14, 0), LocalTime.of(16, 0)));
+
+        // Act & Assert
+        BusinessLogicException exception = assertThrows(BusinessLogicException.class,
+                () -> showtimeImportService.scheduleRecurring(request));
+        assertTrue(exception.getMessage().contains("the occurrence at " + day.atTime(14, 0).toInstant(ZoneOffset.UTC)));
+        verifyNoInteractions(showtimeBatchInserter);
+    }
+
+    @Test
+    void scheduleRecurring_WithUnknownMovie_ShouldThrowResourceNotFoundException() {
+        // Arrange
+        when(movieRepository.existsById(1L)).thenReturn(false);
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        RecurringShowtimeRequest request = recurring(day, day, List.of(LocalTime.of(14, 0)));
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> showtimeImportService.scheduleRecurring(request));
+        verifyNoInteractions(showtimeBatchInserter, showtimeRepository);
+    }
+
+    private RecurringShowtimeRequest recurring(LocalDate startDate, LocalDate endDate, List<LocalTime> times) {
+        RecurringShowtimeRequest request = new RecurringShowtimeRequest();
+        request.setMovieId(1L);
+        request.setTheater("Hall 1");
+        request.setPrice(10.0);
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setTimes(times);
+        request.setDurationMinutes(150);
+        return request;
+    }
+
+    private void assignIds() {
+        doAnswer(invocation -> {
+            List<Showtime> showtimes = invocation.getArgument(0);
+            for (int i = 0; i < showtimes.size(); i++) {
+                showtimes.get(i).setId(100L + i);
+            }
+            return null;
+        }).when(showtimeBatchInserter).insertAll(anyList());
+    }
+
+    private String row(Long movieId, String theater, int fromHour, int toHour) {
+        return movieId + "," + theater + ",10.0," + start.plus(fromHour, ChronoUnit.HOURS) + "," + start.plus(toHour, ChronoUnit.HOURS);
+    }
+
+    private String json(Long movieId, String theater, int fromHour, int toHour) {
+        return String.format("{\"movieId\": %d, \"theater\": \"%s\", \"price\": 10.0, \"startTime\": \"%s\", \"endTime\": \"%s\"}",
+                movieId, theater, start.plus(fromHour, ChronoUnit.HOURS), start.plus(toHour, ChronoUnit.HOURS));
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
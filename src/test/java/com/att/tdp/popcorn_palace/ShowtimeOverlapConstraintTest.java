@@ -0,0 +1,55 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.repositories.ShowtimeOverlapConstraint;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.PermissionDeniedDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShowtimeOverlapConstraintTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ShowtimeOverlapConstraint showtimeOverlapConstraint;
+
+    @Test
+    void afterPropertiesSet_WhenTheConstraintCannotBeInstalled_ShouldFailStartup() {
+        // Arrange
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(ShowtimeRepository.NO_OVERLAP_CONSTRAINT)))
+                .thenReturn(0);
+        doThrow(new PermissionDeniedDataAccessException("permission denied to create extension", null))
+                .when(jdbcTemplate).execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> showtimeOverlapConstraint.afterPropertiesSet());
+    }
+
+    @Test
+    void afterPropertiesSet_WhenTheConstraintExists_ShouldLeaveTheSchemaAlone() {
+        // Arrange
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(ShowtimeRepository.NO_OVERLAP_CONSTRAINT)))
+                .thenReturn(1);
+
+        // Act
+        showtimeOverlapConstraint.afterPropertiesSet();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
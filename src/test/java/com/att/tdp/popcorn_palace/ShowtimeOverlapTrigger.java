@@ -0,0 +1,57 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * H2 stand-in for the PostgreSQL exclusion constraint on showtimes, installed by schema-h2.sql.
+ * Rejects a row whose [start_time, end_time] touches another showtime of the same theater with
+ * the SQLSTATE and constraint name PostgreSQL would report.
+ */
+public class ShowtimeOverlapTrigger implements Trigger {
+
+    private int idColumn;
+    private int theaterColumn;
+    private int startTimeColumn;
+    private int endTimeColumn;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (columns.next()) {
+                int index = columns.getInt("ORDINAL_POSITION") - 1;
+                switch (columns.getString("COLUMN_NAME").toLowerCase()) {
+                    case "id" -> idColumn = index;
+                    case "theater_id" -> theaterColumn = index;
+                    case "start_time" -> startTimeColumn = index;
+                    case "end_time" -> endTimeColumn = index;
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM showtimes WHERE theater_id = ? AND start_time <= ? AND end_time >= ? AND id <> ?")) {
+            statement.setObject(1, newRow[theaterColumn]);
+            statement.setObject(2, newRow[endTimeColumn]);
+            statement.setObject(3, newRow[startTimeColumn]);
+            statement.setObject(4, newRow[idColumn] != null ? newRow[idColumn] : -1L);
+            try (ResultSet overlapping = statement.executeQuery()) {
+                if (overlapping.next()) {
+                    throw new SQLException("conflicting key value violates exclusion constraint \"" +
+                            ShowtimeRepository.NO_OVERLAP_CONSTRAINT + "\"", "23P01");
+                }
+            }
+        }
+    }
+}
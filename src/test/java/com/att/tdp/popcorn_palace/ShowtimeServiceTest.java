@@ -6,18 +6,24 @@ import com.att.tdp.popcorn_palace.exceptions.ResourceNotFoundException;
 import com.att.tdp.popcorn_palace.models.Showtime;
 import com.att.tdp.popcorn_palace.repositories.MovieRepository;
 import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.att.tdp.popcorn_palace.services.MovieShowtimeCache;
+import com.att.tdp.popcorn_palace.services.SeatAllocator;
+import com.att.tdp.popcorn_palace.services.ShowtimeCache;
 import com.att.tdp.popcorn_palace.services.ShowtimeService;
+import com.att.tdp.popcorn_palace.services.TheaterDayScheduleCache;
+import com.att.tdp.popcorn_palace.services.TheaterScheduleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +39,24 @@ public class ShowtimeServiceTest {
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private SeatAllocator seatAllocator;
+
+    @Mock
+    private TheaterScheduleIndex theaterScheduleIndex;
+
+    @Mock
+    private TheaterDayScheduleCache theaterDayScheduleCache;
+
+    @Mock
+    private TheaterDictionary theaterDictionary;
+
+    @Mock
+    private MovieShowtimeCache movieShowtimeCache;
+
+    @Mock
+    private ShowtimeCache showtimeCache;
+
     @InjectMocks
     private ShowtimeService showtimeService;
 
@@ -56,10 +80,8 @@ public class ShowtimeServiceTest {
     void addShowtime_WithValidData_ShouldSaveAndReturnShowtime() {
         // Arrange
         when(movieRepository.existsById(anyLong())).thenReturn(true);
-        when(showtimeRepository.findOverlappingShowtimes(
-                anyString(), any(Instant.class), any(Instant.class), isNull()))
-                .thenReturn(new ArrayList<>());
-        when(showtimeRepository.save(any(Showtime.class))).thenReturn(testShowtime);
+        when(theaterScheduleIndex.overlaps(anyString(), any(Instant.class), any(Instant.class), isNull())).thenReturn(false);
+        when(showtimeRepository.saveAndFlush(any(Showtime.class))).thenReturn(testShowtime);
 
         // Act
         Showtime result = showtimeService.addShowtime(testShowtime);
@@ -67,12 +89,17 @@ public class ShowtimeServiceTest {
         // Assert
         assertEquals(testShowtime, result);
         verify(movieRepository).existsById(testShowtime.getMovieId());
-        verify(showtimeRepository).findOverlappingShowtimes(
+        verify(theaterScheduleIndex).overlaps(
                 eq(testShowtime.getTheater()), 
                 eq(testShowtime.getStartTime()), 
                 eq(testShowtime.getEndTime()), 
                 isNull());
-        verify(showtimeRepository).save(testShowtime);
+        verify(theaterDictionary).register(testShowtime.getTheater());
+        verify(showtimeRepository).saveAndFlush(testShowtime);
+        verify(theaterScheduleIndex).add(testShowtime.getTheater(), testShowtime.getId(),
+                testShowtime.getStartTime(), testShowtime.getEndTime());
+        verify(theaterDayScheduleCache).invalidate(testShowtime.getTheater(), testShowtime.getStartTime());
+        verify(movieShowtimeCache).invalidate(testShowtime.getMovieId());
     }
 
     @Test
@@ -89,9 +116,9 @@ public class ShowtimeServiceTest {
         assertTrue(exception.getMessage().contains("Movie"));
         assertTrue(exception.getMessage().contains(testShowtime.getMovieId().toString()));
         verify(movieRepository).existsById(testShowtime.getMovieId());
-        verify(showtimeRepository, never()).findOverlappingShowtimes(
+        verify(theaterScheduleIndex, never()).overlaps(
                 anyString(), any(Instant.class), any(Instant.class), any());
-        verify(showtimeRepository, never()).save(any(Showtime.class));
+        verify(showtimeRepository, never()).saveAndFlush(any(Showtime.class));
     }
 
     @Test
@@ -115,7 +142,7 @@ public class ShowtimeServiceTest {
         
         assertTrue(exception.getMessage().contains("startTime"));
         verify(movieRepository).existsById(invalidShowtime.getMovieId());
-        verify(showtimeRepository, never()).save(any(Showtime.class));
+        verify(showtimeRepository, never()).saveAndFlush(any(Showtime.class));
     }
 
     @Test
@@ -139,19 +166,14 @@ public class ShowtimeServiceTest {
         
         assertTrue(exception.getMessage().contains("startTime"));
         verify(movieRepository).existsById(pastShowtime.getMovieId());
-        verify(showtimeRepository, never()).save(any(Showtime.class));
+        verify(showtimeRepository, never()).saveAndFlush(any(Showtime.class));
     }
 
     @Test
     void addShowtime_WithOverlappingTimes_ShouldThrowBusinessLogicException() {
         // Arrange
-        List<Showtime> overlappingShowtimes = new ArrayList<>();
-        overlappingShowtimes.add(new Showtime());
-        
         when(movieRepository.existsById(anyLong())).thenReturn(true);
-        when(showtimeRepository.findOverlappingShowtimes(
-                anyString(), any(Instant.class), any(Instant.class), isNull()))
-                .thenReturn(overlappingShowtimes);
+        when(theaterScheduleIndex.overlaps(anyString(), any(Instant.class), any(Instant.class), isNull())).thenReturn(true);
 
         // Act & Assert
         BusinessLogicException exception = assertThrows(
@@ -161,31 +183,51 @@ public class ShowtimeServiceTest {
         
         assertTrue(exception.getMessage().contains("overlaps"));
         verify(movieRepository).existsById(testShowtime.getMovieId());
-        verify(showtimeRepository).findOverlappingShowtimes(
+        verify(theaterScheduleIndex).overlaps(
                 eq(testShowtime.getTheater()), 
                 eq(testShowtime.getStartTime()), 
                 eq(testShowtime.getEndTime()), 
                 isNull());
-        verify(showtimeRepository, never()).save(any(Showtime.class));
+        verify(showtimeRepository, never()).saveAndFlush(any(Showtime.class));
+    }
+
+    @Test
+    void addShowtime_WhenDatabaseRejectsOverlap_ShouldThrowBusinessLogicException() {
+        // Arrange
+        when(movieRepository.existsById(anyLong())).thenReturn(true);
+        when(theaterScheduleIndex.overlaps(anyString(), any(Instant.class), any(Instant.class), isNull())).thenReturn(false);
+        when(showtimeRepository.saveAndFlush(any(Showtime.class))).thenThrow(new DataIntegrityViolationException(
+                "exclusion", new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        // Act & Assert
+        BusinessLogicException exception = assertThrows(
+            BusinessLogicException.class,
+            () -> showtimeService.addShowtime(testShowtime)
+        );
+
+        assertTrue(exception.getMessage().contains("overlaps"));
+        verify(theaterScheduleIndex).evict(testShowtime.getTheater());
+        verify(theaterScheduleIndex, never()).add(anyString(), anyLong(), any(Instant.class), any(Instant.class));
     }
 
     @Test
     void getShowtime_WithExistingId_ShouldReturnShowtime() {
         // Arrange
-        when(showtimeRepository.findById(1L)).thenReturn(Optional.of(testShowtime));
+        when(showtimeCache.get(1L)).thenReturn(testShowtime);
 
         // Act
         Showtime result = showtimeService.getShowtime(1L);
 
         // Assert
         assertEquals(testShowtime, result);
-        verify(showtimeRepository).findById(1L);
+        verify(showtimeCache).get(1L);
+        verify(showtimeRepository, never()).findById(anyLong());
     }
 
     @Test
     void getShowtime_WithNonExistentId_ShouldThrowResourceNotFoundException() {
         // Arrange
-        when(showtimeRepository.findById(1L)).thenReturn(Optional.empty());
+        when(showtimeCache.get(1L)).thenReturn(null);
 
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(
@@ -195,7 +237,7 @@ public class ShowtimeServiceTest {
         
         assertTrue(exception.getMessage().contains("Showtime"));
         assertTrue(exception.getMessage().contains("1"));
-        verify(showtimeRepository).findById(1L);
+        verify(showtimeCache).get(1L);
     }
 
     @Test
@@ -218,9 +260,7 @@ public class ShowtimeServiceTest {
         
         when(showtimeRepository.findById(1L)).thenReturn(Optional.of(existingShowtime));
         when(movieRepository.existsById(anyLong())).thenReturn(true);
-        when(showtimeRepository.findOverlappingShowtimes(
-                anyString(), any(Instant.class), any(Instant.class), eq(1L)))
-                .thenReturn(new ArrayList<>());
+        when(theaterScheduleIndex.overlaps(anyString(), any(Instant.class), any(Instant.class), eq(1L))).thenReturn(false);
 
         // Act
         showtimeService.updateShowtime(updatedShowtime, 1L);
@@ -233,12 +273,17 @@ public class ShowtimeServiceTest {
         
         verify(showtimeRepository).findById(1L);
         verify(movieRepository).existsById(updatedShowtime.getMovieId());
-        verify(showtimeRepository).findOverlappingShowtimes(
+        verify(theaterScheduleIndex).overlaps(
                 eq(updatedShowtime.getTheater()), 
                 eq(updatedShowtime.getStartTime()), 
                 eq(updatedShowtime.getEndTime()), 
                 eq(1L));
-        verify(showtimeRepository).save(existingShowtime);
+        verify(showtimeRepository).saveAndFlush(existingShowtime);
+        verify(theaterScheduleIndex).remove("Theater 1", 1L);
+        verify(theaterScheduleIndex).add("Theater 2", 1L, updatedShowtime.getStartTime(), updatedShowtime.getEndTime());
+        verify(theaterDayScheduleCache).invalidate("Theater 1", futureTime);
+        verify(theaterDayScheduleCache).invalidate("Theater 2", updatedShowtime.getStartTime());
+        verify(showtimeCache).invalidate(1L);
     }
 
     @Test
@@ -255,7 +300,7 @@ public class ShowtimeServiceTest {
         assertTrue(exception.getMessage().contains("Showtime"));
         assertTrue(exception.getMessage().contains("1"));
         verify(showtimeRepository).findById(1L);
-        verify(showtimeRepository, never()).save(any(Showtime.class));
+        verify(showtimeRepository, never()).saveAndFlush(any(Showtime.class));
     }
 
     @Test
@@ -269,6 +314,11 @@ public class ShowtimeServiceTest {
         // Assert
         verify(showtimeRepository).findById(1L);
         verify(showtimeRepository).delete(testShowtime);
+        verify(seatAllocator).evict(1L);
+        verify(theaterScheduleIndex).remove(testShowtime.getTheater(), 1L);
+        verify(theaterDayScheduleCache).invalidate(testShowtime.getTheater(), testShowtime.getStartTime());
+        verify(movieShowtimeCache).invalidate(testShowtime.getMovieId());
+        verify(showtimeCache).invalidate(1L);
     }
 
     @Test
@@ -0,0 +1,100 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.Showtime;
+import com.att.tdp.popcorn_palace.models.TheaterDaySchedule;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.att.tdp.popcorn_palace.services.TheaterDayScheduleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TheaterDayScheduleCacheTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 1);
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    @Mock
+    private TheaterDictionary theaterDictionary;
+
+    private TheaterDayScheduleCache theaterDayScheduleCache;
+
+    @BeforeEach
+    void setUp() {
+        // Theaters get IDs in order of first use
+        List<String> theaters = new ArrayList<>();
+        lenient().when(theaterDictionary.lookup(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (!theaters.contains(name)) {
+                theaters.add(name);
+            }
+            return theaters.indexOf(name) + 1;
+        });
+        lenient().when(theaterDictionary.nameOf(anyInt())).thenAnswer(invocation ->
+                theaters.get((int) invocation.getArgument(0) - 1));
+        theaterDayScheduleCache = new TheaterDayScheduleCache(showtimeRepository, theaterDictionary,
+                ZoneId.of("America/New_York"), 100);
+    }
+
+    @Test
+    void get_ShouldLoadEachDayOnceAndServeTheSameSnapshot() {
+        // Arrange
+        Showtime showtime = showtime(7L, "2030-03-01T23:00:00Z");
+        when(showtimeRepository.findScheduleByTheater(anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(List.of(showtime));
+
+        // Act
+        TheaterDaySchedule first = theaterDayScheduleCache.get("Theater 1", DAY);
+        TheaterDaySchedule second = theaterDayScheduleCache.get("Theater 1", DAY);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(List.of(7L), first.getShowtimes().stream().map(Showtime::getId).toList());
+        assertNotSame(showtime, first.getShowtimes().get(0));
+        // The day is a calendar day in the configured zone
+        verify(showtimeRepository, times(1)).findScheduleByTheater("Theater 1",
+                Instant.parse("2030-03-01T05:00:00Z"), Instant.parse("2030-03-02T05:00:00Z"));
+    }
+
+    @Test
+    void invalidate_ShouldDropOnlyTheDayOfTheShowtime() {
+        // Arrange
+        when(showtimeRepository.findScheduleByTheater(anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(List.of());
+        TheaterDaySchedule day = theaterDayScheduleCache.get("Theater 1", DAY);
+        TheaterDaySchedule nextDay = theaterDayScheduleCache.get("Theater 1", DAY.plusDays(1));
+        TheaterDaySchedule otherTheater = theaterDayScheduleCache.get("Theater 2", DAY);
+
+        // Act
+        // 02:00 UTC on March 2nd is still March 1st in New York
+        theaterDayScheduleCache.invalidate("Theater 1", Instant.parse("2030-03-02T02:00:00Z"));
+
+        // Assert
+        assertNotSame(day, theaterDayScheduleCache.get("Theater 1", DAY));
+        assertSame(nextDay, theaterDayScheduleCache.get("Theater 1", DAY.plusDays(1)));
+        assertSame(otherTheater, theaterDayScheduleCache.get("Theater 2", DAY));
+        verify(showtimeRepository, times(4)).findScheduleByTheater(anyString(), any(Instant.class), any(Instant.class));
+    }
+
+    private static Showtime showtime(Long id, String startTime) {
+        Instant start = Instant.parse(startTime);
+        Showtime showtime = new Showtime(10.0, 1L, "Theater 1", start, start.plusSeconds(7200));
+        showtime.setId(id);
+        return showtime;
+    }
+}
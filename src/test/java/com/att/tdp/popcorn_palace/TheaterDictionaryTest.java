@@ -0,0 +1,63 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TheaterDictionaryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TheaterDictionary theaterDictionary;
+
+    @BeforeEach
+    void setUp() {
+        theaterDictionary = new TheaterDictionary(jdbcTemplate, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void lookup_WithUnknownName_ShouldQueryTheDatabaseOnce() {
+        // Arrange
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Integer>>any(), eq("Theater Nowhere"))).thenReturn(List.of());
+
+        // Act & Assert
+        assertNull(theaterDictionary.lookup("Theater Nowhere"));
+        assertNull(theaterDictionary.lookup("Theater Nowhere"));
+        verify(jdbcTemplate, times(1)).query(anyString(), ArgumentMatchers.<RowMapper<Integer>>any(), eq("Theater Nowhere"));
+    }
+
+    @Test
+    void register_ShouldReplaceACachedMiss() {
+        // Arrange
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Integer>>any(), eq("Theater New"))).thenReturn(List.of());
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Integer>>any())).thenReturn(7);
+        assertNull(theaterDictionary.lookup("Theater New"));
+
+        // Act
+        int id = theaterDictionary.register("Theater New");
+
+        // Assert
+        // Outside a transaction the insert is auto-committed, so the theater is known at once
+        assertEquals(7, id);
+        assertEquals(7, theaterDictionary.lookup("Theater New"));
+        assertEquals("Theater New", theaterDictionary.nameOf(7));
+    }
+}
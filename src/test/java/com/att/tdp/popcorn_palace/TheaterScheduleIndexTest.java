@@ -0,0 +1,189 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.ShowtimeInterval;
+import com.att.tdp.popcorn_palace.models.TimeSlot;
+import com.att.tdp.popcorn_palace.repositories.ShowtimeRepository;
+import com.att.tdp.popcorn_palace.repositories.TheaterDictionary;
+import com.att.tdp.popcorn_palace.services.TheaterScheduleIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TheaterScheduleIndexTest {
+
+    @Mock
+    private ShowtimeRepository showtimeRepository;
+
+    @Mock
+    private TheaterDictionary theaterDictionary;
+
+    @InjectMocks
+    private TheaterScheduleIndex theaterScheduleIndex;
+
+    private Instant noon;
+
+    @BeforeEach
+    void setUp() {
+        noon = Instant.parse("2030-01-01T12:00:00Z");
+        // Theaters get IDs in order of first use
+        List<String> theaters = new ArrayList<>();
+        lenient().when(theaterDictionary.lookup(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (!theaters.contains(name)) {
+                theaters.add(name);
+            }
+            return theaters.indexOf(name) + 1;
+        });
+    }
+
+    private Instant at(int hours, int minutes) {
+        return noon.plus(hours, ChronoUnit.HOURS).plus(minutes, ChronoUnit.MINUTES);
+    }
+
+    @Test
+    void overlaps_ShouldLoadTheaterOnceAndUseInclusiveBounds() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 1")).thenReturn(List.of(
+                new ShowtimeInterval(2L, at(3, 0), at(5, 0)),
+                new ShowtimeInterval(1L, at(0, 0), at(2, 0))));
+
+        // Act & Assert
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(1, 0), at(1, 30), null));
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(2, 0), at(2, 30), null)); // touches the end
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(2, 30), at(3, 0), null)); // touches the start
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(-1, 0), at(6, 0), null)); // covers both
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(2, 1), at(2, 59), null));
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(5, 1), at(7, 0), null));
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(-3, 0), at(-1, 0), null));
+        verify(showtimeRepository, times(1)).findIntervalsByTheater("Theater 1");
+    }
+
+    @Test
+    void overlaps_ShouldIgnoreExcludedShowtime() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 1")).thenReturn(List.of(
+                new ShowtimeInterval(1L, at(0, 0), at(2, 0)),
+                new ShowtimeInterval(2L, at(3, 0), at(5, 0))));
+
+        // Act & Assert
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(3, 30), at(4, 30), 2L));
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(1, 30), at(4, 30), 2L));
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(3, 30), at(4, 30), 1L));
+    }
+
+    @Test
+    void add_AndRemove_ShouldKeepLoadedScheduleInSync() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 1")).thenReturn(List.of());
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(0, 0), at(2, 0), null));
+
+        // Act & Assert
+        theaterScheduleIndex.add("Theater 1", 7L, at(1, 0), at(3, 0));
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(0, 0), at(2, 0), null));
+
+        theaterScheduleIndex.add("Theater 1", 7L, at(4, 0), at(6, 0)); // moved
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(0, 0), at(2, 0), null));
+        assertTrue(theaterScheduleIndex.overlaps("Theater 1", at(5, 0), at(7, 0), null));
+
+        theaterScheduleIndex.remove("Theater 1", 7L);
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(5, 0), at(7, 0), null));
+        verify(showtimeRepository, times(1)).findIntervalsByTheater("Theater 1");
+    }
+
+    @Test
+    void add_ToUnloadedTheater_ShouldLeaveLoadingToTheDatabase() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 2"))
+                .thenReturn(List.of(new ShowtimeInterval(3L, at(1, 0), at(3, 0))));
+
+        // Act
+        theaterScheduleIndex.add("Theater 2", 3L, at(1, 0), at(3, 0));
+
+        // Assert
+        assertTrue(theaterScheduleIndex.overlaps("Theater 2", at(2, 0), at(4, 0), null));
+        assertFalse(theaterScheduleIndex.overlaps("Theater 1", at(2, 0), at(4, 0), null));
+    }
+
+    @Test
+    void evict_ShouldReloadScheduleOnNextCheck() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 1")).thenReturn(List.of());
+        theaterScheduleIndex.overlaps("Theater 1", at(0, 0), at(2, 0), null);
+
+        // Act
+        theaterScheduleIndex.evict("Theater 1");
+        theaterScheduleIndex.overlaps("Theater 1", at(0, 0), at(2, 0), null);
+
+        // Assert
+        verify(showtimeRepository, times(2)).findIntervalsByTheater("Theater 1");
+    }
+
+    @Test
+    void freeSlots_ShouldReturnGapsThatFitTheDurationWithoutTouchingShowtimes() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Theater 1")).thenReturn(List.of(
+                new ShowtimeInterval(1L, at(-2, 0), at(1, 0)),   // started before the window
+                new ShowtimeInterval(2L, at(2, 0), at(4, 0)),    // leaves a one hour gap before it
+                new ShowtimeInterval(3L, at(7, 0), at(9, 0))));  // leaves a three hour gap before it
+
+        // Act
+        List<TimeSlot> slots = theaterScheduleIndex.freeSlots("Theater 1", at(0, 0), at(12, 0), Duration.ofMinutes(90));
+
+        // Assert
+        assertEquals(2, slots.size());
+        assertEquals(at(4, 0).plusNanos(1_000), slots.get(0).getStartTime());
+        assertEquals(at(7, 0).minusNanos(1_000), slots.get(0).getEndTime());
+        assertEquals(at(9, 0).plusNanos(1_000), slots.get(1).getStartTime());
+        assertEquals(at(12, 0), slots.get(1).getEndTime());
+        for (TimeSlot slot : slots) {
+            assertFalse(theaterScheduleIndex.overlaps("Theater 1", slot.getStartTime(), slot.getEndTime(), null));
+        }
+    }
+
+    @Test
+    void freeSlots_WithEmptyOrFullSchedule_ShouldReturnWholeWindowOrNothing() {
+        // Arrange
+        when(showtimeRepository.findIntervalsByTheater("Empty")).thenReturn(List.of());
+        when(showtimeRepository.findIntervalsByTheater("Full")).thenReturn(List.of(
+                new ShowtimeInterval(1L, at(0, 0), at(2, 0)),
+                new ShowtimeInterval(2L, at(2, 30), at(4, 30))));
+
+        // Act
+        List<TimeSlot> empty = theaterScheduleIndex.freeSlots("Empty", at(0, 0), at(3, 0), Duration.ofHours(3));
+        List<TimeSlot> full = theaterScheduleIndex.freeSlots("Full", at(0, 0), at(4, 30), Duration.ofMinutes(30));
+
+        // Assert
+        assertEquals(1, empty.size());
+        assertEquals(at(0, 0), empty.get(0).getStartTime());
+        assertEquals(at(3, 0), empty.get(0).getEndTime());
+        assertTrue(full.isEmpty());
+    }
+
+    @Test
+    void overlaps_WithUnknownTheater_ShouldNotQueryOrCacheSchedule() {
+        // Arrange
+        when(theaterDictionary.lookup("New Theater")).thenReturn(null);
+
+        // Act
+        boolean overlaps = theaterScheduleIndex.overlaps("New Theater", at(0, 0), at(2, 0), null);
+        theaterScheduleIndex.add("New Theater", 1L, at(0, 0), at(2, 0));
+
+        // Assert
+        assertFalse(overlaps);
+        assertFalse(theaterScheduleIndex.overlaps("New Theater", at(1, 0), at(3, 0), null));
+        verify(showtimeRepository, never()).findIntervalsByTheater(anyString());
+    }
+}
@@ -0,0 +1,142 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.services.TokenBucketLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        // Start from a negative reading, which System.nanoTime() is allowed to return
+        now = new AtomicLong(-5 * SECOND);
+    }
+
+    @Test
+    void acquire_WithinBurst_ShouldAdmitImmediately() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 3, 0, 16, now::get);
+
+        // Act & Assert
+        assertEquals(0, limiter.acquire(1L));
+        assertEquals(0, limiter.acquire(1L));
+        assertEquals(0, limiter.acquire(1L));
+        assertTrue(limiter.acquire(1L) < 0);
+    }
+
+    @Test
+    void acquire_WhenBucketIsEmpty_ShouldReserveTokensInArrivalOrderUpToMaxWait() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 1, SECOND / 4, 16, now::get);
+        assertEquals(0, limiter.acquire(1L));
+
+        // Act & Assert
+        assertEquals(SECOND / 10, limiter.acquire(1L));
+        assertEquals(2 * SECOND / 10, limiter.acquire(1L));
+        long rejected = limiter.acquire(1L);
+        assertTrue(rejected < 0);
+        assertEquals(SECOND / 20, -rejected);
+    }
+
+    @Test
+    void acquire_AfterTokensRefill_ShouldAdmitAgain() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 2, 0, 16, now::get);
+        limiter.acquire(1L);
+        limiter.acquire(1L);
+        assertTrue(limiter.acquire(1L) < 0);
+
+        // Act
+        now.addAndGet(SECOND / 10);
+
+        // Assert
+        assertEquals(0, limiter.acquire(1L));
+        assertTrue(limiter.acquire(1L) < 0);
+    }
+
+    @Test
+    void acquire_WithDifferentKeys_ShouldUseSeparateBuckets() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 0, 4096, now::get);
+
+        // Act & Assert
+        assertEquals(0, limiter.acquire(1L));
+        assertTrue(limiter.acquire(1L) < 0);
+        assertEquals(0, limiter.acquire(2L));
+    }
+
+    @Test
+    void acquire_WithCollidingKeysInOneSlot_ShouldShareTheirBucket() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 0, 1, now::get);
+
+        // Act & Assert
+        // A single slot makes every key collide, which the slot table accepts as an approximation
+        assertEquals(0, limiter.acquire(1L));
+        assertTrue(limiter.acquire(2L) < 0);
+    }
+
+    @Test
+    void acquire_PerKey_ShouldNotShareBucketsBetweenKeys() {
+        // Arrange
+        TokenBucketLimiter limiter = TokenBucketLimiter.perKey(1, 1, 0, 1000, now::get);
+
+        // Act & Assert
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(0, limiter.acquire(key));
+        }
+        assertTrue(limiter.acquire(7L) < 0);
+    }
+
+    @Test
+    void acquire_PerKey_AfterIdleBucketIsForgotten_ShouldStartFull() {
+        // Arrange
+        TokenBucketLimiter limiter = TokenBucketLimiter.perKey(10, 2, 0, 1000, now::get);
+        limiter.acquire(1L);
+        limiter.acquire(1L);
+        assertTrue(limiter.acquire(1L) < 0);
+
+        // Act
+        now.addAndGet(SECOND);
+
+        // Assert
+        assertEquals(0, limiter.acquire(1L));
+        assertEquals(0, limiter.acquire(1L));
+        assertTrue(limiter.acquire(1L) < 0);
+    }
+
+    @Test
+    void release_PerKey_ShouldReturnToken() {
+        // Arrange
+        TokenBucketLimiter limiter = TokenBucketLimiter.perKey(1, 1, 0, 16, now::get);
+        assertEquals(0, limiter.acquire(1L));
+
+        // Act
+        limiter.release(1L);
+
+        // Assert
+        assertEquals(0, limiter.acquire(1L));
+    }
+
+    @Test
+    void release_ShouldReturnToken() {
+        // Arrange
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 0, 16, now::get);
+        assertEquals(0, limiter.acquire(1L));
+
+        // Act
+        limiter.release(1L);
+
+        // Assert
+        assertEquals(0, limiter.acquire(1L));
+    }
+}
@@ -0,0 +1,70 @@
+package com.att.tdp.popcorn_palace;
+
+import com.att.tdp.popcorn_palace.models.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7GeneratorTest {
+
+    @Test
+    void next_ShouldIssueVersion7UuidsWithCurrentTimestamp() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID uuid = UuidV7Generator.next();
+
+        // Assert
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void next_ShouldBeStrictlyIncreasingWithinOneThread() {
+        // Arrange
+        UUID previous = UuidV7Generator.next();
+
+        // Act & Assert
+        for (int i = 0; i < 100_000; i++) {
+            UUID current = UuidV7Generator.next();
+            // Compare as unsigned bytes, the way databases order uuid columns
+            assertTrue(Long.compareUnsigned(current.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = current;
+        }
+    }
+
+    @Test
+    void next_WithConcurrentCallers_ShouldNeverRepeat() throws Exception {
+        // Arrange
+        Set<UUID> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < 20_000; j++) {
+                    issued.add(UuidV7Generator.next());
+                }
+            });
+        }
+
+        // Act
+        tasks.forEach(executor::execute);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(160_000, issued.size());
+    }
+}
@@ -0,0 +1,3 @@
+-- H2 has no exclusion constraints; a trigger enforces the showtime no-overlap rule instead
+CREATE TRIGGER trg_showtime_no_overlap BEFORE INSERT, UPDATE ON showtimes
+    FOR EACH ROW CALL 'com.att.tdp.popcorn_palace.ShowtimeOverlapTrigger';